@@ -3,6 +3,7 @@ import org.gradle.api.file.DuplicatesStrategy
 plugins {
     `maven-publish`
     id("com.gradleup.shadow") version "9.3.1"
+    id("me.champeau.jmh") version "0.7.3"
     id("hytale-mod") version "0.+"
 }
 
@@ -51,16 +52,39 @@ dependencies {
     testImplementation(libs.mockito.core)
     testImplementation(libs.mockito.junit)
     testImplementation(libs.assertj.core)
+
+    // Benchmarks (src/jmh/java)
+    jmhImplementation(libs.hytale.server)
+}
+
+// Vector API (jdk.incubator.vector) for the SIMD render kernels; at runtime they
+// are only used when the server JVM is also started with this flag
+val vectorModuleArg = "--add-modules=jdk.incubator.vector"
+
+tasks.withType<JavaCompile>().configureEach {
+    options.compilerArgs.add(vectorModuleArg)
 }
 
 tasks.test {
     useJUnitPlatform()
+    jvmArgs(vectorModuleArg)
     testLogging {
         events("passed", "skipped", "failed")
         showStandardStreams = true
     }
 }
 
+jmh {
+    jmhVersion = libs.versions.jmh.get()
+    // Report allocation rate (bytes/op) next to ns/op
+    profilers = listOf("gc")
+    // Run a subset with e.g. -PjmhInclude=DeltaCompressorBenchmark
+    findProperty("jmhInclude")?.let { includes = listOf(it.toString()) }
+    // Extra JVM flags, e.g. -PjmhJvmArgs="-XX:UseAVX=0" (SSE only) or "-Dvirtualtale.vector=false" (scalar)
+    jvmArgsAppend = listOf(vectorModuleArg) +
+        (findProperty("jmhJvmArgs")?.toString()?.split(" ")?.filter { it.isNotBlank() } ?: emptyList())
+}
+
 java {
     toolchain {
         languageVersion = JavaLanguageVersion.of(javaVersion)
@@ -0,0 +1,67 @@
+package dev.chasem.hg.virtualtale.display;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RGB -> RGBA conversion of one full Game Boy frame: the scalar loop, the
+ * Vector API kernel, and {@link ColorMapper#toRgba(int[], int[], int)}, which
+ * picks one of them at startup. Compare AVX2 with SSE by rerunning with
+ * {@code -PjmhJvmArgs=-XX:UseAVX=0}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ColorMapperBenchmark {
+
+    private final int[] rgb = new int[MapDisplayRenderer.GB_WIDTH * MapDisplayRenderer.GB_HEIGHT];
+    private final int[] rgba = new int[rgb.length];
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < rgb.length; i++) {
+            rgb[i] = random.nextInt() & 0xFFFFFF;
+        }
+    }
+
+    @Benchmark
+    public int[] toRgbaPerPixel() {
+        for (int i = 0; i < rgb.length; i++) {
+            rgba[i] = ColorMapper.toRgba(rgb[i]);
+        }
+        return rgba;
+    }
+
+    @Benchmark
+    public int[] toRgbaArray() {
+        ColorMapper.toRgba(rgb, rgba, rgb.length);
+        return rgba;
+    }
+
+    @Benchmark
+    public int[] toRgbaScalar() {
+        ColorMapper.toRgbaScalar(rgb, 0, rgba, 0, rgb.length);
+        return rgba;
+    }
+
+    @Benchmark
+    public int[] toRgbaVector() {
+        VectorKernels.toRgba(rgb, 0, rgba, 0, rgb.length);
+        return rgba;
+    }
+}
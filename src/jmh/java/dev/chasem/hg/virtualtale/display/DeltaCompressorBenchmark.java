@@ -0,0 +1,110 @@
+package dev.chasem.hg.virtualtale.display;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Change detection over a 6x5 grid of 64x64 chunks (one Game Boy frame at
+ * scale 1) per call, under three workloads:
+ * <ul>
+ *   <li>STATIC - every chunk identical to the previous frame (menus, pauses)</li>
+ *   <li>SCROLLING - every chunk shifted by one row (side-scrolling)</li>
+ *   <li>FULL_CHANGE - unrelated content every frame (scene transitions)</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class DeltaCompressorBenchmark {
+
+    private static final int GRID_WIDTH = 6;
+    private static final int GRID_HEIGHT = 5;
+    private static final int CHUNKS = GRID_WIDTH * GRID_HEIGHT;
+    private static final int SIZE = MapDisplayRenderer.CHUNK_IMAGE_SIZE;
+    private static final int PIXELS = SIZE * SIZE;
+
+    /** Number of precomputed frames the workload cycles through. */
+    private static final int FRAMES = 8;
+
+    public enum Workload {
+        STATIC, SCROLLING, FULL_CHANGE
+    }
+
+    @Param({"STATIC", "SCROLLING", "FULL_CHANGE"})
+    public Workload workload;
+
+    @Param({"FULL", "HASH", "HASH_VERIFIED"})
+    public DeltaCompressor.Mode mode;
+
+    private DeltaCompressor compressor;
+
+    // [frame][chunk][pixel]
+    private int[][][] frames;
+    private int frameIndex;
+
+    @Setup
+    public void setUp() {
+        compressor = new DeltaCompressor(GRID_WIDTH, GRID_HEIGHT, PIXELS, mode);
+        Random random = new Random(42);
+
+        int[][] base = new int[CHUNKS][PIXELS];
+        for (int[] chunk : base) {
+            for (int i = 0; i < PIXELS; i++) {
+                chunk[i] = random.nextInt() | 0xFF;
+            }
+        }
+
+        frames = new int[FRAMES][CHUNKS][];
+        for (int f = 0; f < FRAMES; f++) {
+            for (int c = 0; c < CHUNKS; c++) {
+                frames[f][c] = switch (workload) {
+                    case STATIC -> base[c];
+                    case SCROLLING -> scrolled(base[c], f);
+                    case FULL_CHANGE -> random.ints(PIXELS).map(p -> p | 0xFF).toArray();
+                };
+            }
+        }
+
+        // Prime the previous-frame state
+        checkFrame(frames[FRAMES - 1]);
+    }
+
+    private static int[] scrolled(int[] chunk, int rows) {
+        int[] result = new int[PIXELS];
+        int shift = rows * SIZE;
+        System.arraycopy(chunk, shift, result, 0, PIXELS - shift);
+        System.arraycopy(chunk, 0, result, PIXELS - shift, shift);
+        return result;
+    }
+
+    private int checkFrame(int[][] frame) {
+        int changed = 0;
+        for (int c = 0; c < CHUNKS; c++) {
+            if (compressor.hasChanged(c, frame[c])) {
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    @Benchmark
+    public int hasChanged() {
+        frameIndex = (frameIndex + 1) % FRAMES;
+        return checkFrame(frames[frameIndex]);
+    }
+}
@@ -0,0 +1,140 @@
+package dev.chasem.hg.virtualtale.display;
+
+import com.hypixel.hytale.protocol.packets.worldmap.UpdateWorldMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Frame rendering at every map scale, for Game Boy and GBA resolutions.
+ *
+ * The full-change benchmarks alternate between two unrelated frames so every
+ * display chunk is rebuilt and sent on each call (a scene transition); the
+ * unchanged benchmark measures the cost of a tick on a static screen. The
+ * pooled variant builds packets from a {@link RenderPool} and releases them
+ * right away, as a session does after serializing; compare its gc.alloc.rate.norm
+ * with the plain variant. {@code fillDisplayChunk} is the fused chunk kernel on
+ * the center chunk as the renderer builds it (reduced image, RGB input); run it
+ * with {@code -PjmhJvmArgs=-Dvirtualtale.vector=false} for the scalar path.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MapDisplayRendererBenchmark {
+
+    public enum Screen {
+        GB(160, 144),
+        GBA(240, 160);
+
+        final int width;
+        final int height;
+
+        Screen(int width, int height) {
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    @Param({"GB", "GBA"})
+    public Screen screen;
+
+    @Param({"1", "2", "3", "4", "5", "6", "7", "8"})
+    public int mapScale;
+
+    private MapDisplayRenderer renderer;
+    private MapDisplayRenderer pooledRenderer;
+    private RenderPool pool;
+    private int pooledFrameIndex;
+    private int[][] rgbFrames;
+    private int frameIndex;
+
+    private int[] rgbaFrame;
+    private int[] chunk;
+    private int[] centerRowLut;
+    private int[] centerColumnLut;
+    private int centerChunkX;
+    private int centerChunkZ;
+
+    @Setup
+    public void setUp() {
+        renderer = new MapDisplayRenderer(0, 0, mapScale, screen.width, screen.height);
+        Random random = new Random(42);
+        rgbFrames = new int[2][screen.width * screen.height];
+        for (int[] frame : rgbFrames) {
+            for (int i = 0; i < frame.length; i++) {
+                frame[i] = random.nextInt() & 0xFFFFFF;
+            }
+        }
+        rgbaFrame = new int[rgbFrames[0].length];
+        ColorMapper.toRgba(rgbFrames[0], rgbaFrame, rgbaFrame.length);
+        chunk = new int[MapDisplayRenderer.CHUNK_IMAGE_SIZE * MapDisplayRenderer.CHUNK_IMAGE_SIZE];
+
+        // The display is centered on the origin, so chunk (0, 0) is display content at every scale
+        centerChunkX = 0;
+        centerChunkZ = 0;
+        int[] rowLut = MapDisplayRenderer.buildLut(0, renderer.getDisplayStartZ(),
+                screen.height * mapScale, mapScale, screen.width);
+        int[] columnLut = MapDisplayRenderer.buildLut(0, renderer.getDisplayStartX(),
+                screen.width * mapScale, mapScale, 1);
+        int factor = MapDisplayRenderer.reductionFactor(rowLut, columnLut);
+        centerRowLut = MapDisplayRenderer.sampleLut(rowLut, factor);
+        centerColumnLut = MapDisplayRenderer.sampleLut(columnLut, factor);
+
+        pool = new RenderPool();
+        pooledRenderer = new MapDisplayRenderer(0, 0, mapScale, screen.width, screen.height);
+        pooledRenderer.setRenderPool(pool);
+
+        // Send the static chunks up front so they don't skew the first iterations
+        renderer.renderRgbFrame(rgbFrames[1]);
+        pool.release(pooledRenderer.renderRgbFrame(rgbFrames[1]));
+        frameIndex = 1;
+        pooledFrameIndex = 1;
+    }
+
+    @Benchmark
+    public int[] extractChunk() {
+        MapDisplayRenderer.extractChunk(rgbaFrame, centerChunkX, centerChunkZ, mapScale, chunk,
+                renderer.getDisplayStartX(), renderer.getDisplayStartZ(),
+                screen.width * mapScale, screen.height * mapScale, screen.width, screen.height);
+        return chunk;
+    }
+
+    @Benchmark
+    public long fillDisplayChunk() {
+        return MapDisplayRenderer.fillChunk(rgbFrames[0], true, centerRowLut, centerColumnLut, chunk, true);
+    }
+
+    @Benchmark
+    public UpdateWorldMap renderRgbFrameFullChange() {
+        frameIndex ^= 1;
+        return renderer.renderRgbFrame(rgbFrames[frameIndex]);
+    }
+
+    @Benchmark
+    public int renderRgbFrameFullChangePooled() {
+        pooledFrameIndex ^= 1;
+        UpdateWorldMap packet = pooledRenderer.renderRgbFrame(rgbFrames[pooledFrameIndex]);
+        int chunks = packet.chunks.length;
+        pool.release(packet);
+        return chunks;
+    }
+
+    @Benchmark
+    public UpdateWorldMap renderRgbFrameUnchanged() {
+        return renderer.renderRgbFrame(rgbFrames[frameIndex]);
+    }
+}
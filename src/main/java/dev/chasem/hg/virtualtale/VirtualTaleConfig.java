@@ -3,6 +3,8 @@ package dev.chasem.hg.virtualtale;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.hypixel.hytale.logger.HytaleLogger;
+import dev.chasem.hg.virtualtale.display.DeltaCompressor;
+import dev.chasem.hg.virtualtale.emulator.InputArbiter;
 
 import javax.annotation.Nonnull;
 import java.io.IOException;
@@ -26,6 +28,20 @@ public class VirtualTaleConfig {
     private String anchorWorldName = "default";
     private int mapScale = 4;
     private long buttonHoldMs = 200;
+    private int renderThreads = 0;
+    private DeltaCompressor.Mode deltaMode = DeltaCompressor.Mode.FULL;
+    private long maxBytesPerSecond = 0;
+    private int maxChunksPerTick = 0;
+    private boolean pooledRendering = false;
+    private InputArbiter.Mode inputMode = InputArbiter.Mode.OWNER;
+    private int maxSessions = 0;
+    private int maxGbaSessions = 0;
+    private int maxEmulationCost = 0;
+    private boolean pooledEmulation = false;
+    private int emulationThreads = 0;
+    private long pacingSpinMicros = 0;
+    private int maxCatchUpFrames = 6;
+    private boolean allowUnthrottledSpeed = false;
 
     private transient Path configPath;
     private transient Path romDirectory;
@@ -88,6 +104,34 @@ public class VirtualTaleConfig {
     public int getMapScale() { return mapScale; }
     public void setMapScale(int mapScale) { this.mapScale = Math.max(1, mapScale); save(); }
     public long getButtonHoldMs() { return buttonHoldMs; }
+    /** Size of the shared render pool; 0 (default) uses one thread per CPU core. */
+    public int getRenderThreads() { return renderThreads; }
+    /** How changed chunks are detected: FULL copies, HASH, or HASH_VERIFIED. Unknown values fall back to FULL. */
+    public DeltaCompressor.Mode getDeltaMode() { return deltaMode != null ? deltaMode : DeltaCompressor.Mode.FULL; }
+    /** Outbound map data cap per session in bytes per second, summed over all its viewers; 0 (default) is unlimited. */
+    public long getMaxBytesPerSecond() { return maxBytesPerSecond; }
+    /** Most display chunks sent per render tick (the rest follow on later ticks); 0 (default) is unlimited. */
+    public int getMaxChunksPerTick() { return maxChunksPerTick; }
+    /** Whether map packets are built from recycled per-session objects (serialized before sending). */
+    public boolean isPooledRendering() { return pooledRendering; }
+    /** Who controls a shared session by default: OWNER, SHARED or TURNS. Unknown values fall back to OWNER. */
+    public InputArbiter.Mode getInputMode() { return inputMode != null ? inputMode : InputArbiter.Mode.OWNER; }
+    /** Most emulator sessions running at once (others wait in a queue); 0 (default) is unlimited. */
+    public int getMaxSessions() { return maxSessions; }
+    /** Most GBA sessions running at once; 0 (default) is unlimited. */
+    public int getMaxGbaSessions() { return maxGbaSessions; }
+    /** CPU budget for all sessions, where a Game Boy costs 1 and a GBA 4; 0 (default) is unlimited. */
+    public int getMaxEmulationCost() { return maxEmulationCost; }
+    /** Whether sessions emulate one frame at a time on a shared pool instead of a thread each. */
+    public boolean isPooledEmulation() { return pooledEmulation; }
+    /** Size of the shared emulation pool when pooled; 0 (default) uses one thread per CPU core. */
+    public int getEmulationThreads() { return emulationThreads; }
+    /** How long before a frame deadline the emulator thread stops sleeping and spins; 0 (default) never spins. */
+    public long getPacingSpinMicros() { return Math.max(0, pacingSpinMicros); }
+    /** Most frames an emulator may run late and then catch up on; further behind, the missed frames are skipped. */
+    public int getMaxCatchUpFrames() { return Math.max(0, maxCatchUpFrames); }
+    /** Whether players may use {@code /vt speed max}, which keeps a CPU core busy for as long as the game runs. */
+    public boolean isAllowUnthrottledSpeed() { return allowUnthrottledSpeed; }
 
     /**
      * Returns the expected GBA BIOS file location.
@@ -56,11 +56,12 @@ public class VirtualTalePlugin extends JavaPlugin {
         getCommandRegistry().registerCommand(new VirtualTaleCommand(sessionManager, config));
         LOGGER.atInfo().log("[VT] Commands registered");
 
-        // Handle player disconnect - clean up debounce state and stop their session
+        // Handle player disconnect - clean up debounce state, stop their session and stop watching
         getEventRegistry().registerGlobal(PlayerDisconnectEvent.class, event -> {
             UUID playerId = event.getPlayerRef().getUuid();
             hotbarFilter.clearPlayer(playerId);
             sessionManager.stopSession(playerId);
+            sessionManager.unwatch(playerId);
         });
 
         LOGGER.atInfo().log("[VT] VirtualTale setup complete!");
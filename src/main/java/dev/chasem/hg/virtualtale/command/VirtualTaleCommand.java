@@ -15,8 +15,11 @@ import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 import com.hypixel.hytale.server.core.entity.entities.Player;
 import com.hypixel.hytale.server.core.modules.entity.player.PlayerSettings;
 import dev.chasem.hg.virtualtale.VirtualTaleConfig;
+import dev.chasem.hg.virtualtale.emulator.EmulatorBackend;
 import dev.chasem.hg.virtualtale.emulator.EmulatorSession;
 import dev.chasem.hg.virtualtale.emulator.EmulatorSessionManager;
+import dev.chasem.hg.virtualtale.emulator.FrameClock;
+import dev.chasem.hg.virtualtale.emulator.InputArbiter;
 import dev.chasem.hg.virtualtale.emulator.RomType;
 
 import javax.annotation.Nonnull;
@@ -30,7 +33,8 @@ import java.util.function.Predicate;
 /**
  * Command handler for /vt (VirtualTale).
  * Usage: /vt <subcommand> [args]
- * Subcommands: start <rom>, stop, list, roms, mapscale <n>, speed <1-8>
+ * Subcommands: start <rom>, stop, list, roms, mapscale <n>, speed <1-8>, watch <player>, unwatch,
+ * join <player>, pass <player>, input <owner|shared|turns>, savestate, loadstate
  */
 public class VirtualTaleCommand extends AbstractPlayerCommand {
 
@@ -50,7 +54,7 @@ public class VirtualTaleCommand extends AbstractPlayerCommand {
         super("vt", "VirtualTale emulator (Game Boy / GBA)");
         this.sessionManager = sessionManager;
         this.config = config;
-        this.subcommandArg = withRequiredArg("subcommand", "start/stop/list/roms/mapscale/speed", ArgTypes.STRING);
+        this.subcommandArg = withRequiredArg("subcommand", "start/stop/list/roms/mapscale/speed/watch/unwatch/join/pass/input/savestate/loadstate", ArgTypes.STRING);
         this.romArg = withDefaultArg("rom", "ROM filename or value", ArgTypes.STRING, "", "");
     }
 
@@ -66,18 +70,25 @@ public class VirtualTaleCommand extends AbstractPlayerCommand {
         String value = romArg.get(context);
 
         switch (subcommand) {
-            case "start" -> handleStart(store, ref, playerRef, value.isBlank() ? null : value);
+            case "start" -> handleStart(store, ref, playerRef, world, value.isBlank() ? null : value);
             case "stop" -> handleStop(store, ref, playerRef, world);
             case "list" -> handleList(playerRef);
             case "roms" -> handleRoms(playerRef);
             case "mapscale" -> handleMapScale(playerRef, value);
             case "speed" -> handleSpeed(playerRef, value);
+            case "watch" -> handleWatch(store, ref, playerRef, value);
+            case "unwatch", "leave" -> handleUnwatch(store, ref, playerRef, world);
+            case "join" -> handleJoin(store, ref, playerRef, value);
+            case "pass" -> handlePass(playerRef, value);
+            case "input" -> handleInputMode(playerRef, value);
+            case "savestate" -> handleSaveState(playerRef);
+            case "loadstate" -> handleLoadState(playerRef);
             default -> sendUsage(playerRef);
         }
     }
 
     private void handleStart(@Nonnull Store<EntityStore> store, @Nonnull Ref<EntityStore> ref,
-                             @Nonnull PlayerRef playerRef, String romName) {
+                             @Nonnull PlayerRef playerRef, @Nonnull World world, String romName) {
         if (romName == null || romName.isBlank()) {
             playerRef.sendMessage(Message.raw("Usage: /vt start --rom=<filename>"));
             return;
@@ -87,9 +98,20 @@ public class VirtualTaleCommand extends AbstractPlayerCommand {
             playerRef.sendMessage(Message.raw("You already have an active session. Use /vt stop first."));
             return;
         }
+        if (sessionManager.getWatchedOwner(playerRef.getUuid()) != null) {
+            playerRef.sendMessage(Message.raw("You are watching a session. Use /vt unwatch first."));
+            return;
+        }
 
         try {
-            sessionManager.startSession(playerRef.getUuid(), playerRef, romName.trim());
+            EmulatorSession session = sessionManager.requestSession(playerRef.getUuid(), playerRef, romName.trim(),
+                    position -> onQueueUpdate(store, ref, playerRef, world, romName, position));
+            if (session == null) {
+                int position = sessionManager.getQueuePosition(playerRef.getUuid());
+                playerRef.sendMessage(Message.raw("All emulators are busy. You are #" + position
+                        + " in the queue; your game starts automatically. Use /vt stop to leave the queue."));
+                return;
+            }
             updatePlayerMarkerVisibility(store, ref, playerRef, true);
             String systemName = isGbaRom(romName) ? "GBA" : "Game Boy";
             playerRef.sendMessage(Message.raw("VirtualTale started! (" + systemName + ") Open your map (M) to see the display."));
@@ -103,17 +125,174 @@ public class VirtualTaleCommand extends AbstractPlayerCommand {
         }
     }
 
+    /**
+     * Queue listener for a waiting player: reports their new position, or starts
+     * their game on the world thread once a slot has been reserved for them.
+     */
+    private void onQueueUpdate(@Nonnull Store<EntityStore> store, @Nonnull Ref<EntityStore> ref,
+                               @Nonnull PlayerRef playerRef, @Nonnull World world, @Nonnull String romName,
+                               int position) {
+        if (position > 0) {
+            playerRef.sendMessage(Message.raw("You are now #" + position + " in the queue."));
+            return;
+        }
+        world.execute(() -> {
+            if (!ref.isValid()) {
+                // Left before their turn came: hand the reserved slot to the next player
+                sessionManager.stopSession(playerRef.getUuid());
+                return;
+            }
+            if (sessionManager.getWatchedOwner(playerRef.getUuid()) != null) {
+                // Started watching between admission and this task: handleStart would refuse and keep the slot
+                sessionManager.stopSession(playerRef.getUuid());
+                playerRef.sendMessage(Message.raw("Your queued game was cancelled because you are watching a session."));
+                return;
+            }
+            handleStart(store, ref, playerRef, world, romName);
+        });
+    }
+
     private void handleStop(@Nonnull Store<EntityStore> store, @Nonnull Ref<EntityStore> ref,
                             @Nonnull PlayerRef playerRef, @Nonnull World world) {
         EmulatorSession session = sessionManager.getSession(playerRef.getUuid());
         if (session == null) {
-            playerRef.sendMessage(Message.raw("You don't have an active session."));
+            if (sessionManager.getQueuePosition(playerRef.getUuid()) > 0) {
+                sessionManager.stopSession(playerRef.getUuid());
+                playerRef.sendMessage(Message.raw("Left the queue."));
+            } else if (sessionManager.getWatchedOwner(playerRef.getUuid()) != null) {
+                playerRef.sendMessage(Message.raw("You are watching a session. Use /vt unwatch to stop watching."));
+            } else {
+                playerRef.sendMessage(Message.raw("You don't have an active session."));
+            }
             return;
         }
 
         // Stop session (blocks until render scheduler is fully terminated)
         sessionManager.stopSession(playerRef.getUuid());
+        restoreWorldMap(store, ref, playerRef, world);
+
+        playerRef.sendMessage(Message.raw("VirtualTale stopped. Map will refresh shortly."));
+    }
+
+    private void handleWatch(@Nonnull Store<EntityStore> store, @Nonnull Ref<EntityStore> ref,
+                             @Nonnull PlayerRef playerRef, String ownerName) {
+        if (ownerName == null || ownerName.isBlank()) {
+            playerRef.sendMessage(Message.raw("Usage: /vt watch --rom=<player>"));
+            return;
+        }
+
+        try {
+            EmulatorSession session = sessionManager.watchSession(playerRef.getUuid(), playerRef, ownerName.trim());
+            updatePlayerMarkerVisibility(store, ref, playerRef, true);
+            playerRef.sendMessage(Message.raw("Watching " + session.getPlayerRef().getUsername() + " play "
+                    + session.getRomName() + ". Open your map (M) to see the display. Use /vt unwatch to stop."));
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            playerRef.sendMessage(Message.raw("Cannot watch: " + e.getMessage()));
+        }
+    }
+
+    private void handleJoin(@Nonnull Store<EntityStore> store, @Nonnull Ref<EntityStore> ref,
+                            @Nonnull PlayerRef playerRef, String ownerName) {
+        if (ownerName == null || ownerName.isBlank()) {
+            playerRef.sendMessage(Message.raw("Usage: /vt join --rom=<player>"));
+            return;
+        }
+
+        try {
+            EmulatorSession session = sessionManager.joinSession(playerRef.getUuid(), playerRef, ownerName.trim());
+            updatePlayerMarkerVisibility(store, ref, playerRef, true);
+            playerRef.sendMessage(Message.raw("Joined " + session.getPlayerRef().getUsername() + "'s game of "
+                    + session.getRomName() + " (input: " + describeInputMode(session.getInputArbiter().getMode())
+                    + "). Use /vt leave to stop playing."));
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            playerRef.sendMessage(Message.raw("Cannot join: " + e.getMessage()));
+        }
+    }
+
+    private void handlePass(@Nonnull PlayerRef playerRef, String targetName) {
+        EmulatorSession session = sessionManager.getInputSession(playerRef.getUuid());
+        if (session == null) {
+            playerRef.sendMessage(Message.raw("You aren't playing a session."));
+            return;
+        }
+        if (targetName == null || targetName.isBlank()) {
+            playerRef.sendMessage(Message.raw("Usage: /vt pass --rom=<player>"));
+            return;
+        }
+
+        InputArbiter arbiter = session.getInputArbiter();
+        PlayerRef target = null;
+        if (session.getPlayerRef().getUsername().equalsIgnoreCase(targetName.trim())) {
+            target = session.getPlayerRef();
+        } else {
+            for (PlayerRef viewer : session.getSpectators()) {
+                if (arbiter.isPlayer(viewer.getUuid()) && viewer.getUsername().equalsIgnoreCase(targetName.trim())) {
+                    target = viewer;
+                    break;
+                }
+            }
+        }
+        if (target == null) {
+            playerRef.sendMessage(Message.raw("No player named " + targetName.trim() + " in this game."));
+            return;
+        }
+
+        try {
+            arbiter.passControl(playerRef.getUuid(), target.getUuid());
+            playerRef.sendMessage(Message.raw("Passed the controller to " + target.getUsername() + "."));
+            target.sendMessage(Message.raw(playerRef.getUsername() + " passed you the controller. Your turn!"));
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            playerRef.sendMessage(Message.raw("Cannot pass: " + e.getMessage()));
+        }
+    }
+
+    private void handleInputMode(@Nonnull PlayerRef playerRef, String value) {
+        EmulatorSession session = sessionManager.getSession(playerRef.getUuid());
+        if (session == null) {
+            playerRef.sendMessage(Message.raw("You don't have an active session."));
+            return;
+        }
+
+        InputArbiter arbiter = session.getInputArbiter();
+        if (value.isBlank()) {
+            playerRef.sendMessage(Message.raw("Current input mode: " + describeInputMode(arbiter.getMode())));
+            playerRef.sendMessage(Message.raw("Usage: /vt input --rom=<owner|shared|turns>"));
+            return;
+        }
+
+        InputArbiter.Mode mode;
+        try {
+            mode = InputArbiter.Mode.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            playerRef.sendMessage(Message.raw("Input mode must be owner, shared or turns."));
+            return;
+        }
+
+        arbiter.setMode(mode);
+        playerRef.sendMessage(Message.raw("Input mode set to " + describeInputMode(mode) + "."));
+    }
+
+    private static String describeInputMode(@Nonnull InputArbiter.Mode mode) {
+        return switch (mode) {
+            case OWNER -> "owner only";
+            case SHARED -> "everyone";
+            case TURNS -> "taking turns";
+        };
+    }
 
+    private void handleUnwatch(@Nonnull Store<EntityStore> store, @Nonnull Ref<EntityStore> ref,
+                               @Nonnull PlayerRef playerRef, @Nonnull World world) {
+        if (!sessionManager.unwatch(playerRef.getUuid())) {
+            playerRef.sendMessage(Message.raw("You aren't watching or playing a session."));
+            return;
+        }
+
+        restoreWorldMap(store, ref, playerRef, world);
+        playerRef.sendMessage(Message.raw("Left the session. Map will refresh shortly."));
+    }
+
+    private void restoreWorldMap(@Nonnull Store<EntityStore> store, @Nonnull Ref<EntityStore> ref,
+                                 @Nonnull PlayerRef playerRef, @Nonnull World world) {
         // Reset the server-side WorldMapTracker so terrain chunks get re-sent.
         // clear() wipes the loaded set + sentViewRadius and sends ClearWorldMap,
         // then sendSettings() re-sends map config so the client knows the map is active.
@@ -128,8 +307,6 @@ public class VirtualTaleCommand extends AbstractPlayerCommand {
         } catch (Exception e) {
             LOGGER.atWarning().log("[VT] Failed to reset world map for %s: %s", playerRef.getUsername(), e.getMessage());
         }
-
-        playerRef.sendMessage(Message.raw("VirtualTale stopped. Map will refresh shortly."));
     }
 
     private void handleList(@Nonnull PlayerRef playerRef) {
@@ -141,7 +318,17 @@ public class VirtualTaleCommand extends AbstractPlayerCommand {
 
         playerRef.sendMessage(Message.raw("Active sessions (" + sessions.size() + "):"));
         for (EmulatorSession session : sessions) {
-            playerRef.sendMessage(Message.raw("  - " + session.getPlayerId() + " -> " + session.getRomName()));
+            long kbPerSecond = session.getBandwidthGovernor().getBytesLastSecond() / 1024;
+            int spectators = session.getSpectators().size();
+            FrameClock.Stats pacing = session.getBackend().getFrameClock().getStats();
+            playerRef.sendMessage(Message.raw("  - " + session.getPlayerRef().getUsername() + " -> " + session.getRomName()
+                    + " (" + kbPerSecond + " KB/s, " + String.format("%.1f FPS, avg late %.1f ms", pacing.fps(),
+                    pacing.avgLateNanos() / 1_000_000.0)
+                    + (spectators > 0 ? ", " + spectators + " watching" : "") + ")"));
+        }
+        int queued = sessionManager.getQueueLength();
+        if (queued > 0) {
+            playerRef.sendMessage(Message.raw(queued + " player(s) waiting in the queue."));
         }
     }
 
@@ -184,10 +371,8 @@ public class VirtualTaleCommand extends AbstractPlayerCommand {
         // Auto-restart if session is active
         EmulatorSession session = sessionManager.getSession(playerRef.getUuid());
         if (session != null) {
-            String romName = session.getRomName();
-            sessionManager.stopSession(playerRef.getUuid());
             try {
-                sessionManager.startSession(playerRef.getUuid(), playerRef, romName);
+                sessionManager.restartSession(playerRef.getUuid(), playerRef);
                 playerRef.sendMessage(Message.raw("Session restarted with scale " + scale + "."));
             } catch (Exception e) {
                 playerRef.sendMessage(Message.raw("Failed to restart session: " + e.getMessage()));
@@ -205,7 +390,18 @@ public class VirtualTaleCommand extends AbstractPlayerCommand {
         if (value.isBlank()) {
             double current = session.getBackend().getSpeedMultiplier();
             playerRef.sendMessage(Message.raw("Current speed: " + formatSpeed(current)));
-            playerRef.sendMessage(Message.raw("Usage: /vt speed --rom=<1-8>"));
+            playerRef.sendMessage(Message.raw("Usage: /vt speed --rom=<1-8|max>"));
+            return;
+        }
+
+        if (value.trim().equalsIgnoreCase("max")) {
+            if (!config.isAllowUnthrottledSpeed()) {
+                // Unthrottled emulation pins a core, which the emulation cost budget doesn't account for
+                playerRef.sendMessage(Message.raw("Max speed is disabled on this server. Use a speed from 1 to 8."));
+                return;
+            }
+            session.getBackend().setSpeedMultiplier(EmulatorBackend.UNTHROTTLED);
+            playerRef.sendMessage(Message.raw("Emulator speed set to max (unthrottled)."));
             return;
         }
 
@@ -218,7 +414,7 @@ public class VirtualTaleCommand extends AbstractPlayerCommand {
         }
 
         if (speed < 1 || speed > 8) {
-            playerRef.sendMessage(Message.raw("Speed must be between 1 and 8."));
+            playerRef.sendMessage(Message.raw("Speed must be between 1 and 8, or max."));
             return;
         }
 
@@ -226,7 +422,50 @@ public class VirtualTaleCommand extends AbstractPlayerCommand {
         playerRef.sendMessage(Message.raw("Emulator speed set to " + speed + "x."));
     }
 
+    private void handleSaveState(@Nonnull PlayerRef playerRef) {
+        EmulatorSession session = sessionManager.getSession(playerRef.getUuid());
+        if (session == null) {
+            playerRef.sendMessage(Message.raw("You don't have an active session."));
+            return;
+        }
+        if (!session.getBackend().supportsSaveStates()) {
+            playerRef.sendMessage(Message.raw("Save states are only supported for Game Boy and Game Boy Color games."));
+            return;
+        }
+
+        try {
+            sessionManager.saveState(playerRef.getUuid());
+            playerRef.sendMessage(Message.raw("State saved. Use /vt loadstate to return to this point."));
+        } catch (Exception e) {
+            playerRef.sendMessage(Message.raw("Failed to save state: " + e.getMessage()));
+            LOGGER.atWarning().log("[VT] Failed to save state for %s: %s", playerRef.getUsername(), e.getMessage());
+        }
+    }
+
+    private void handleLoadState(@Nonnull PlayerRef playerRef) {
+        EmulatorSession session = sessionManager.getSession(playerRef.getUuid());
+        if (session == null) {
+            playerRef.sendMessage(Message.raw("You don't have an active session."));
+            return;
+        }
+        if (!session.getBackend().supportsSaveStates()) {
+            playerRef.sendMessage(Message.raw("Save states are only supported for Game Boy and Game Boy Color games."));
+            return;
+        }
+
+        try {
+            sessionManager.loadState(playerRef.getUuid());
+            playerRef.sendMessage(Message.raw("State loaded."));
+        } catch (Exception e) {
+            playerRef.sendMessage(Message.raw("Failed to load state: " + e.getMessage()));
+            LOGGER.atWarning().log("[VT] Failed to load state for %s: %s", playerRef.getUsername(), e.getMessage());
+        }
+    }
+
     private static String formatSpeed(double multiplier) {
+        if (Double.isInfinite(multiplier)) {
+            return "max";
+        }
         if (multiplier == (long) multiplier) {
             return (long) multiplier + "x";
         }
@@ -240,7 +479,14 @@ public class VirtualTaleCommand extends AbstractPlayerCommand {
         playerRef.sendMessage(Message.raw("  list                - List active sessions"));
         playerRef.sendMessage(Message.raw("  roms                - List available ROM files"));
         playerRef.sendMessage(Message.raw("  mapscale --rom=<n>  - Set display size 1-8 (default: 4)"));
-        playerRef.sendMessage(Message.raw("  speed --rom=<1-8>   - Set emulator speed multiplier (default: 1)"));
+        playerRef.sendMessage(Message.raw("  speed --rom=<1-8|max> - Set emulator speed multiplier (default: 1)"));
+        playerRef.sendMessage(Message.raw("  watch --rom=<player> - Watch another player's session"));
+        playerRef.sendMessage(Message.raw("  unwatch             - Stop watching (or leave a joined game)"));
+        playerRef.sendMessage(Message.raw("  join --rom=<player> - Join another player's game as a co-op player"));
+        playerRef.sendMessage(Message.raw("  pass --rom=<player> - Pass the controller (input mode: turns)"));
+        playerRef.sendMessage(Message.raw("  input --rom=<mode>  - Who controls your game: owner, shared or turns"));
+        playerRef.sendMessage(Message.raw("  savestate           - Save a snapshot of your game (Game Boy only)"));
+        playerRef.sendMessage(Message.raw("  loadstate           - Return to your saved snapshot"));
     }
 
     private static boolean isGbaRom(@Nonnull String romName) {
@@ -262,7 +508,8 @@ public class VirtualTaleCommand extends AbstractPlayerCommand {
             PlayerSettings effectiveSettings = settings != null ? settings : PlayerSettings.defaults();
 
             if (hidePlayerMarkers) {
-                previousShowEntityMarkersByPlayer.put(playerRef.getUuid(), effectiveSettings.showEntityMarkers());
+                // Keep the original setting if the markers are already hidden (e.g. a queued restart)
+                previousShowEntityMarkersByPlayer.putIfAbsent(playerRef.getUuid(), effectiveSettings.showEntityMarkers());
                 if (effectiveSettings.showEntityMarkers()) {
                     store.putComponent(
                             ref,
@@ -31,9 +31,7 @@ public final class ColorMapper {
      * @param pixels array of RGB pixels, modified to RGBA
      */
     public static void toRgbaInPlace(@Nonnull int[] pixels) {
-        for (int i = 0; i < pixels.length; i++) {
-            pixels[i] = (pixels[i] << 8) | 0xFF;
-        }
+        toRgba(pixels, 0, pixels, 0, pixels.length);
     }
 
     /**
@@ -44,11 +42,44 @@ public final class ColorMapper {
      * @param len  number of pixels to convert
      */
     public static void toRgba(@Nonnull int[] src, @Nonnull int[] dest, int len) {
+        toRgba(src, 0, dest, 0, len);
+    }
+
+    /**
+     * Converts a run of RGB pixels to RGBA, like {@link System#arraycopy} with
+     * conversion. Uses SIMD when the Vector API is available (see {@link #isVectorized()}).
+     *
+     * @param src     source RGB pixels
+     * @param srcPos  first source pixel
+     * @param dest    destination RGBA pixels
+     * @param destPos first destination pixel
+     * @param len     number of pixels to convert
+     */
+    public static void toRgba(@Nonnull int[] src, int srcPos, @Nonnull int[] dest, int destPos, int len) {
+        if (VectorSupport.ENABLED) {
+            VectorKernels.toRgba(src, srcPos, dest, destPos, len);
+        } else {
+            toRgbaScalar(src, srcPos, dest, destPos, len);
+        }
+    }
+
+    /**
+     * Scalar version of {@link #toRgba(int[], int, int[], int, int)}, used when the Vector API is unavailable.
+     */
+    static void toRgbaScalar(@Nonnull int[] src, int srcPos, @Nonnull int[] dest, int destPos, int len) {
         for (int i = 0; i < len; i++) {
-            dest[i] = (src[i] << 8) | 0xFF;
+            dest[destPos + i] = (src[srcPos + i] << 8) | 0xFF;
         }
     }
 
+    /**
+     * Returns whether the array conversions use the JDK Vector API. Requires
+     * starting the JVM with {@code --add-modules jdk.incubator.vector}.
+     */
+    public static boolean isVectorized() {
+        return VectorSupport.ENABLED;
+    }
+
     /**
      * Returns an opaque black pixel in RGBA format. Used for padding.
      */
@@ -1,64 +1,304 @@
 package dev.chasem.hg.virtualtale.display;
 
 import javax.annotation.Nonnull;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
 import java.util.Arrays;
 
 /**
  * Compares the current frame's chunk pixels against the previous frame
  * and identifies which chunks have changed. Only changed chunks
  * need to be sent over the network.
+ *
+ * In {@link Mode#FULL} mode a full copy of every chunk is kept. The hash modes
+ * keep a 64-bit content hash per chunk instead, which the renderer computes
+ * while building the chunk image, so retained memory per chunk drops from
+ * 16 KB to a few bytes and comparison is a single long compare.
+ *
+ * Chunks can be compared either as RGBA {@code int[]} images or as palette
+ * indexed {@code byte[]} tiles (see {@link FramePalette}). A renderer must stick
+ * to one representation between {@link #reset()} calls.
  */
 public class DeltaCompressor {
 
+    /**
+     * How previous chunk contents are remembered.
+     */
+    public enum Mode {
+        /** Keep a full copy of each chunk and compare pixel by pixel. */
+        FULL,
+        /** Keep only a 64-bit content hash per chunk. */
+        HASH,
+        /** Keep the hash and a full copy; pixels are compared only when the hashes match. */
+        HASH_VERIFIED
+    }
+
+    private static final long HASH_SEED = 0x9E3779B97F4A7C15L;
+    private static final long HASH_MULTIPLIER = 0x94D049BB133111EBL;
+
+    /** Reads 8 tile indices at a time when hashing byte tiles. */
+    private static final VarHandle LONG_VIEW =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
     private final int gridWidth;
     private final int gridHeight;
     private final int totalChunks;
     private final int chunkPixelCount;
+    private final Mode mode;
 
-    // Previous frame's chunk data for comparison
+    // Previous frame's chunk data for comparison (FULL and HASH_VERIFIED)
     private final int[][] previousChunks;
+    private final byte[][] previousIndexedChunks;
+
+    // Previous frame's chunk hashes (HASH and HASH_VERIFIED)
+    private final long[] previousHashes;
+    private final boolean[] hashValid;
 
     public DeltaCompressor(int gridWidth, int gridHeight, int chunkPixelCount) {
+        this(gridWidth, gridHeight, chunkPixelCount, Mode.FULL);
+    }
+
+    public DeltaCompressor(int gridWidth, int gridHeight, int chunkPixelCount, @Nonnull Mode mode) {
         this.gridWidth = gridWidth;
         this.gridHeight = gridHeight;
         this.totalChunks = gridWidth * gridHeight;
         this.chunkPixelCount = chunkPixelCount;
-        this.previousChunks = new int[totalChunks][];
+        this.mode = mode;
+        this.previousChunks = mode == Mode.HASH ? null : new int[totalChunks][];
+        this.previousIndexedChunks = mode == Mode.HASH ? null : new byte[totalChunks][];
+        this.previousHashes = mode == Mode.FULL ? null : new long[totalChunks];
+        this.hashValid = mode == Mode.FULL ? null : new boolean[totalChunks];
     }
 
     /**
      * Compares a chunk's pixel data against the previous frame.
      * Returns true if the chunk has changed and needs to be sent.
+     * In hash modes the hash is computed here; use
+     * {@link #hasChanged(int, int[], long)} when it is already known.
      *
      * @param chunkIndex index in the grid (row * gridWidth + col)
      * @param pixels     the current chunk's ARGB pixel data
      * @return true if the chunk differs from the previous frame
      */
     public boolean hasChanged(int chunkIndex, @Nonnull int[] pixels) {
+        long hash = mode == Mode.FULL ? 0 : hash(pixels, chunkPixelCount);
+        return hasChanged(chunkIndex, pixels, hash);
+    }
+
+    /**
+     * Compares a chunk against the previous frame using a precomputed content
+     * hash (see {@link #hash(int[], int)}). The hash is ignored in {@link Mode#FULL}.
+     *
+     * @param chunkIndex index in the grid (row * gridWidth + col)
+     * @param pixels     the current chunk's pixel data
+     * @param hash       content hash of the first chunkPixelCount pixels
+     * @return true if the chunk differs from the previous frame
+     */
+    public boolean hasChanged(int chunkIndex, @Nonnull int[] pixels, long hash) {
+        return hasChanged(chunkIndex, pixels, chunkPixelCount, hash);
+    }
+
+    /**
+     * Compares the first {@code length} pixels of a chunk, for chunks sent at a
+     * reduced image size. A chunk's length must not change between resets.
+     *
+     * @param chunkIndex index in the grid (row * gridWidth + col)
+     * @param pixels     the current chunk's pixel data
+     * @param length     number of pixels in this chunk's image
+     * @param hash       content hash of the first {@code length} pixels
+     * @return true if the chunk differs from the previous frame
+     */
+    public boolean hasChanged(int chunkIndex, @Nonnull int[] pixels, int length, long hash) {
         if (chunkIndex < 0 || chunkIndex >= totalChunks) {
             return true;
         }
 
+        if (mode != Mode.FULL) {
+            boolean sameHash = updateHash(chunkIndex, hash);
+            if (mode == Mode.HASH) {
+                return !sameHash;
+            }
+            if (!sameHash) {
+                storePixels(chunkIndex, pixels, length);
+                return true;
+            }
+            // Hashes match - confirm with a full compare below
+        }
+
         int[] previous = previousChunks[chunkIndex];
-        if (previous == null) {
+        if (previous == null || previous.length != length) {
             // First frame for this chunk - always send
-            previousChunks[chunkIndex] = Arrays.copyOf(pixels, chunkPixelCount);
+            previousChunks[chunkIndex] = Arrays.copyOf(pixels, length);
             return true;
         }
 
-        if (!Arrays.equals(previous, 0, chunkPixelCount, pixels, 0, chunkPixelCount)) {
-            System.arraycopy(pixels, 0, previous, 0, chunkPixelCount);
+        if (!Arrays.equals(previous, 0, length, pixels, 0, length)) {
+            System.arraycopy(pixels, 0, previous, 0, length);
             return true;
         }
 
         return false;
     }
 
+    /**
+     * Compares a palette-indexed chunk tile against the previous frame.
+     * In hash modes the hash is computed here.
+     *
+     * @param chunkIndex index in the grid (row * gridWidth + col)
+     * @param indices    the current chunk's palette indices
+     * @return true if the chunk differs from the previous frame
+     */
+    public boolean hasChanged(int chunkIndex, @Nonnull byte[] indices) {
+        long hash = mode == Mode.FULL ? 0 : hash(indices, chunkPixelCount);
+        return hasChanged(chunkIndex, indices, hash);
+    }
+
+    /**
+     * Compares a palette-indexed chunk tile using a precomputed content hash
+     * (see {@link #hash(byte[], int)}). The hash is ignored in {@link Mode#FULL}.
+     *
+     * @param chunkIndex index in the grid (row * gridWidth + col)
+     * @param indices    the current chunk's palette indices
+     * @param hash       content hash of the first chunkPixelCount indices
+     * @return true if the chunk differs from the previous frame
+     */
+    public boolean hasChanged(int chunkIndex, @Nonnull byte[] indices, long hash) {
+        return hasChanged(chunkIndex, indices, chunkPixelCount, hash);
+    }
+
+    /**
+     * Compares the first {@code length} indices of a palette-indexed tile, for
+     * chunks sent at a reduced image size.
+     *
+     * @param chunkIndex index in the grid (row * gridWidth + col)
+     * @param indices    the current chunk's palette indices
+     * @param length     number of pixels in this chunk's image
+     * @param hash       content hash of the first {@code length} indices
+     * @return true if the chunk differs from the previous frame
+     */
+    public boolean hasChanged(int chunkIndex, @Nonnull byte[] indices, int length, long hash) {
+        if (chunkIndex < 0 || chunkIndex >= totalChunks) {
+            return true;
+        }
+
+        if (mode != Mode.FULL) {
+            boolean sameHash = updateHash(chunkIndex, hash);
+            if (mode == Mode.HASH) {
+                return !sameHash;
+            }
+            if (!sameHash) {
+                storeIndices(chunkIndex, indices, length);
+                return true;
+            }
+        }
+
+        byte[] previous = previousIndexedChunks[chunkIndex];
+        if (previous == null || previous.length != length) {
+            previousIndexedChunks[chunkIndex] = Arrays.copyOf(indices, length);
+            return true;
+        }
+
+        if (!Arrays.equals(previous, 0, length, indices, 0, length)) {
+            System.arraycopy(indices, 0, previous, 0, length);
+            return true;
+        }
+
+        return false;
+    }
+
+    /** Records the chunk's new hash and returns whether it matches the previous one. */
+    private boolean updateHash(int chunkIndex, long hash) {
+        boolean sameHash = hashValid[chunkIndex] && previousHashes[chunkIndex] == hash;
+        previousHashes[chunkIndex] = hash;
+        hashValid[chunkIndex] = true;
+        return sameHash;
+    }
+
+    private void storeIndices(int chunkIndex, @Nonnull byte[] indices, int length) {
+        byte[] previous = previousIndexedChunks[chunkIndex];
+        if (previous == null || previous.length != length) {
+            previousIndexedChunks[chunkIndex] = Arrays.copyOf(indices, length);
+        } else {
+            System.arraycopy(indices, 0, previous, 0, length);
+        }
+    }
+
+    private void storePixels(int chunkIndex, @Nonnull int[] pixels, int length) {
+        int[] previous = previousChunks[chunkIndex];
+        if (previous == null || previous.length != length) {
+            previousChunks[chunkIndex] = Arrays.copyOf(pixels, length);
+        } else {
+            System.arraycopy(pixels, 0, previous, 0, length);
+        }
+    }
+
+    /**
+     * Computes the content hash used by the hash modes.
+     */
+    public static long hash(@Nonnull int[] pixels, int len) {
+        return finishHash(hashInto(HASH_SEED, pixels, 0, len));
+    }
+
+    /**
+     * Computes the content hash of a palette-indexed tile.
+     */
+    public static long hash(@Nonnull byte[] indices, int len) {
+        return finishHash(hashInto(HASH_SEED, indices, 0, len));
+    }
+
+    /** Starting value for an incremental {@link #hashInto} computation. */
+    static long hashSeed() {
+        return HASH_SEED;
+    }
+
+    /**
+     * Folds {@code data[from, to)} into a running hash. Hashing a chunk row by
+     * row with this and then calling {@link #finishHash} gives the same result as
+     * {@link #hash(int[], int)} over the whole chunk.
+     */
+    static long hashInto(long h, @Nonnull int[] data, int from, int to) {
+        for (int i = from; i < to; i++) {
+            h = Long.rotateLeft(h ^ data[i], 27) * HASH_MULTIPLIER;
+        }
+        return h;
+    }
+
+    /**
+     * Folds {@code data[from, to)} into a running hash, eight indices per step.
+     */
+    static long hashInto(long h, @Nonnull byte[] data, int from, int to) {
+        int i = from;
+        for (; i + Long.BYTES <= to; i += Long.BYTES) {
+            h = Long.rotateLeft(h ^ (long) LONG_VIEW.get(data, i), 27) * HASH_MULTIPLIER;
+        }
+        for (; i < to; i++) {
+            h = Long.rotateLeft(h ^ data[i], 27) * HASH_MULTIPLIER;
+        }
+        return h;
+    }
+
+    /** Final avalanche step (MurmurHash3 fmix64). */
+    static long finishHash(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
     /**
      * Resets all previous chunk data, forcing a full redraw on the next frame.
      */
     public void reset() {
-        Arrays.fill(previousChunks, null);
+        if (previousChunks != null) {
+            Arrays.fill(previousChunks, null);
+            Arrays.fill(previousIndexedChunks, null);
+        }
+        if (hashValid != null) {
+            Arrays.fill(hashValid, false);
+        }
     }
 
     public int getGridWidth() {
@@ -72,4 +312,9 @@ public class DeltaCompressor {
     public int getTotalChunks() {
         return totalChunks;
     }
+
+    @Nonnull
+    public Mode getMode() {
+        return mode;
+    }
 }
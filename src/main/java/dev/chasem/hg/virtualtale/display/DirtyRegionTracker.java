@@ -0,0 +1,104 @@
+package dev.chasem.hg.virtualtale.display;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+
+/**
+ * Tracks which parts of the emulator frame changed since the previous frame.
+ *
+ * Each frame is diffed row by row against a copy of the previous one; for every
+ * row the tracker records the span of columns that differ. The renderer then asks
+ * whether a chunk's source rectangle intersects any dirty span, so chunks whose
+ * source pixels didn't change are neither extracted nor compared. On mostly static
+ * screens (menus, dialog boxes) this makes a render tick close to free.
+ */
+public class DirtyRegionTracker {
+
+    private final int width;
+    private final int height;
+
+    // Copy of the last frame passed to update()
+    private final int[] previous;
+
+    /** Per row: first and last dirty column, or {@code Integer.MAX_VALUE} / -1 if clean. */
+    private final int[] dirtyMinX;
+    private final int[] dirtyMaxX;
+
+    private boolean initialized;
+
+    public DirtyRegionTracker(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.previous = new int[width * height];
+        this.dirtyMinX = new int[height];
+        this.dirtyMaxX = new int[height];
+    }
+
+    /**
+     * Diffs a new frame against the previous one and records the dirty spans.
+     * The first frame (and the first frame after {@link #invalidate()}) is entirely dirty.
+     *
+     * @param frame the new frame (width * height ints)
+     * @return true if any pixel changed
+     */
+    public boolean update(@Nonnull int[] frame) {
+        if (!initialized) {
+            initialized = true;
+            System.arraycopy(frame, 0, previous, 0, previous.length);
+            Arrays.fill(dirtyMinX, 0);
+            Arrays.fill(dirtyMaxX, width - 1);
+            return true;
+        }
+
+        boolean anyDirty = false;
+        for (int y = 0; y < height; y++) {
+            int rowStart = y * width;
+            int first = Arrays.mismatch(frame, rowStart, rowStart + width, previous, rowStart, rowStart + width);
+            if (first < 0) {
+                dirtyMinX[y] = Integer.MAX_VALUE;
+                dirtyMaxX[y] = -1;
+                continue;
+            }
+
+            int last = width - 1;
+            while (last > first && frame[rowStart + last] == previous[rowStart + last]) {
+                last--;
+            }
+            dirtyMinX[y] = first;
+            dirtyMaxX[y] = last;
+            System.arraycopy(frame, rowStart + first, previous, rowStart + first, last - first + 1);
+            anyDirty = true;
+        }
+        return anyDirty;
+    }
+
+    /**
+     * Returns whether any pixel in the given source rectangle (inclusive bounds)
+     * changed in the last {@link #update}.
+     */
+    public boolean isDirty(int minX, int maxX, int minY, int maxY) {
+        for (int y = minY; y <= maxY; y++) {
+            if (dirtyMinX[y] <= maxX && dirtyMaxX[y] >= minX) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** First dirty column of row {@code y} in the last {@link #update}, or {@code Integer.MAX_VALUE} if clean. */
+    public int getDirtyMinX(int y) {
+        return dirtyMinX[y];
+    }
+
+    /** Last dirty column of row {@code y} in the last {@link #update}, or -1 if clean. */
+    public int getDirtyMaxX(int y) {
+        return dirtyMaxX[y];
+    }
+
+    /**
+     * Forces the next frame to be treated as entirely dirty.
+     */
+    public void invalidate() {
+        initialized = false;
+    }
+}
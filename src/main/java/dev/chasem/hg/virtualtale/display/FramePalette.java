@@ -0,0 +1,130 @@
+package dev.chasem.hg.virtualtale.display;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+
+/**
+ * Small color palette for frames that use only a handful of colors
+ * (a DMG Game Boy only ever emits 4 shades).
+ *
+ * Frame pixels are mapped to byte indices so the renderer can keep frames and
+ * chunk tiles as {@code byte[]} instead of {@code int[]}, a quarter of the
+ * memory to fill, hash and compare. Indices are assigned the first time a color
+ * is seen and never reused until {@link #clear()}, so the same color always has
+ * the same index and indexed tiles from different frames can be compared directly.
+ *
+ * Index 0 is reserved for black and index 1 for the display border, so border
+ * and padding pixels can be written without a lookup.
+ */
+public class FramePalette {
+
+    /** Maximum number of distinct frame colors before the palette overflows. */
+    public static final int MAX_COLORS = 16;
+
+    /** Reserved index for opaque black. */
+    static final byte BLACK_INDEX = 0;
+
+    /** Reserved index for the display border color. */
+    static final byte BORDER_INDEX = 1;
+
+    private static final int RESERVED = 2;
+
+    // Raw frame values (as passed to indexSpan) for indices RESERVED..RESERVED+size
+    private final int[] sourceColors = new int[MAX_COLORS];
+
+    // RGBA color for every index, including the reserved ones
+    private final int[] rgbaColors = new int[RESERVED + MAX_COLORS];
+
+    private int size;
+
+    // Last lookup, frames are mostly long runs of one color
+    private int lastSource;
+    private byte lastIndex = -1;
+
+    public FramePalette(int blackRgba, int borderRgba) {
+        rgbaColors[BLACK_INDEX] = blackRgba;
+        rgbaColors[BORDER_INDEX] = borderRgba;
+    }
+
+    /**
+     * Maps {@code frame[from, to)} to palette indices in {@code dest[from, to)},
+     * adding new colors as they are found.
+     *
+     * @param frame      the full frame (RGB if {@code convertRgb}, otherwise RGBA)
+     * @param convertRgb whether new colors need RGB -> RGBA conversion
+     * @param dest       indexed frame (same length as {@code frame})
+     * @return false if the frame has more than {@link #MAX_COLORS} colors; dest is then partially written
+     */
+    public boolean indexSpan(@Nonnull int[] frame, boolean convertRgb, @Nonnull byte[] dest, int from, int to) {
+        int cachedSource = lastSource;
+        byte cachedIndex = lastIndex;
+        for (int i = from; i < to; i++) {
+            int pixel = frame[i];
+            if (pixel != cachedSource || cachedIndex < 0) {
+                cachedIndex = indexOf(pixel, convertRgb);
+                if (cachedIndex < 0) {
+                    lastIndex = -1;
+                    return false;
+                }
+                cachedSource = pixel;
+            }
+            dest[i] = cachedIndex;
+        }
+        lastSource = cachedSource;
+        lastIndex = cachedIndex;
+        return true;
+    }
+
+    private byte indexOf(int pixel, boolean convertRgb) {
+        for (int i = 0; i < size; i++) {
+            if (sourceColors[i] == pixel) {
+                return (byte) (RESERVED + i);
+            }
+        }
+        if (size == MAX_COLORS) {
+            return -1;
+        }
+        sourceColors[size] = pixel;
+        rgbaColors[RESERVED + size] = convertRgb ? ColorMapper.toRgba(pixel) : pixel;
+        return (byte) (RESERVED + size++);
+    }
+
+    /**
+     * Expands an indexed tile to RGBA for a {@code MapImage}.
+     *
+     * @param indices palette indices
+     * @param len     number of pixels
+     * @return a new RGBA array of {@code len} pixels
+     */
+    @Nonnull
+    public int[] expand(@Nonnull byte[] indices, int len) {
+        int[] rgba = new int[len];
+        expand(indices, len, rgba);
+        return rgba;
+    }
+
+    /**
+     * Expands an indexed tile to RGBA into an existing array.
+     *
+     * @param dest destination, at least {@code len} ints
+     */
+    public void expand(@Nonnull byte[] indices, int len, @Nonnull int[] dest) {
+        for (int i = 0; i < len; i++) {
+            dest[i] = rgbaColors[indices[i]];
+        }
+    }
+
+    /**
+     * Forgets all frame colors. Previously indexed data is meaningless afterwards.
+     */
+    public void clear() {
+        Arrays.fill(sourceColors, 0);
+        size = 0;
+        lastIndex = -1;
+    }
+
+    /** Number of frame colors currently in the palette (excluding the reserved entries). */
+    public int size() {
+        return size;
+    }
+}
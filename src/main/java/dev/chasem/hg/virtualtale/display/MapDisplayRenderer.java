@@ -9,14 +9,18 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 
 /**
  * Splits the Game Boy's 160x144 display into a grid of map chunks
  * for rendering on Hytale's world map.
  *
- * Each map chunk covers 32 world blocks. Images are 64x64 pixels
+ * Each map chunk covers 32 world blocks. Images are at most 64x64 pixels
  * (2 pixels per block), which the client stretches to fill the chunk area.
+ * When the map scale makes neighbouring image pixels identical (at scale 4 every
+ * emulator pixel is an 8x8 block), a chunk is sent at the smallest size that
+ * still represents it exactly, e.g. 8x8 instead of 64x64.
  *
  * The display is centered on the player's world position so the player
  * marker appears at the center of the Game Boy screen on the map.
@@ -28,6 +32,46 @@ import java.util.List;
  *
  * All colors use RGBA format (R<<24 | G<<16 | B<<8 | A) matching
  * Hytale's internal ImageBuilder.Color.pack() format.
+ *
+ * The mapping from chunk image pixels to frame pixels never changes for a
+ * renderer, so it is precomputed once per chunk row and column as lookup
+ * tables. Each frame is then rendered in a single fused pass that reads the
+ * raw emulator frame, converts RGB to RGBA and writes the chunk image, with
+ * no per-pixel division or zone tests.
+ *
+ * Chunks are also classified once at construction time (see {@link ChunkKind}).
+ * Chunks that are entirely border gray or entirely black never change, so they
+ * are sent exactly once as 1x1 images and skipped by per-frame extraction and
+ * delta compression; only chunks that show part of the display are rendered
+ * each frame.
+ *
+ * Before extraction, the raw frame is diffed against the previous one by a
+ * {@link DirtyRegionTracker}; a display chunk is only extracted and compared
+ * when its source rectangle contains a changed pixel.
+ *
+ * Display chunks are kept in priority order, nearest the display center first.
+ * With a per-tick chunk cap ({@link #setMaxChunksPerTick}), a full-screen change
+ * is spread over several packets: chunks over the cap are deferred and sent
+ * first on the next tick, rendered from the newest frame at that point. Within
+ * the deferred and the newly changed chunks, ones that also changed in the last
+ * few ticks (where the action is) go before ones that were static until now.
+ *
+ * With a {@link RenderPool} set, packets are assembled from pooled arrays and
+ * objects that the session returns after serializing, so steady-state rendering
+ * allocates no packet objects (serialization still allocates its own buffer).
+ *
+ * With keyframes enabled ({@link #setKeyframesEnabled}), the renderer keeps a
+ * copy of the last rendered frame so {@link #renderKeyframe()} can produce the
+ * display for a viewer who joins mid-stream, without disturbing the delta state
+ * of the stream itself. The never-changing border and padding come separately
+ * from {@link #renderStaticChunks()}, so callers can encode them once and reuse them.
+ *
+ * Frames with few colors (always the case for DMG Game Boy games) are mapped
+ * through a {@link FramePalette}: the dirty rows are converted to byte indices
+ * once, chunk tiles are built, hashed and diffed as {@code byte[]}, and only
+ * the tiles that actually changed are expanded to RGBA for the packet (the map
+ * protocol only carries RGBA images). If a frame has more colors than the palette
+ * holds, the renderer falls back to RGBA tiles until the next {@link #reset()}.
  */
 public class MapDisplayRenderer {
 
@@ -61,7 +105,112 @@ public class MapDisplayRenderer {
     /** Opaque black (RGBA). */
     private static final int BLACK = 0x000000FF;
 
+    /** Ticks a chunk counts as recently changed for the chunk cap's priority order. */
+    private static final int RECENT_CHANGE_TICKS = 10;
+
+    /** Stand-in frame for rendering chunks that never read frame pixels. */
+    private static final int[] NO_FRAME = new int[0];
+
+    /** Lookup-table code for an image row/column inside the border but outside the display. */
+    static final int LUT_BORDER = -1;
+
+    /** Lookup-table code for an image row/column outside the border. */
+    static final int LUT_OUTSIDE = -2;
+
+    /**
+     * What a chunk contains, decided once from its lookup tables.
+     * Only {@link #DISPLAY} and {@link #MIXED} chunks change between frames.
+     */
+    enum ChunkKind {
+        /** Every pixel is emulator display content. */
+        DISPLAY,
+        /** Some display content plus border and/or black. */
+        MIXED,
+        /** Entirely border gray. */
+        BORDER,
+        /** Border gray and black, but no display content (e.g. around the border's corners). */
+        BORDER_EDGE,
+        /** Entirely black (inside the inner grid, or in the outer padding). */
+        PADDING
+    }
+
+    /**
+     * A chunk that shows part of the display and is re-rendered every frame.
+     */
+    private static final class DynamicChunk {
+        final int chunkX;
+        final int chunkZ;
+        final int innerIndex;
+        final int[] rowLut;
+        final int[] columnLut;
+
+        /** Side length and pixel count of this chunk's (possibly reduced) image. */
+        final int imageSize;
+        final int pixelCount;
+
+        /** Source frame rectangle (inclusive) this chunk displays. */
+        final int srcMinX;
+        final int srcMaxX;
+        final int srcMinY;
+        final int srcMaxY;
+
+        DynamicChunk(int chunkX, int chunkZ, int innerIndex, int[] rowLut, int[] columnLut, int pixelWidth) {
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+            this.innerIndex = innerIndex;
+            this.rowLut = rowLut;
+            this.columnLut = columnLut;
+            this.imageSize = rowLut.length;
+            this.pixelCount = imageSize * imageSize;
+
+            int minX = Integer.MAX_VALUE, maxX = -1, minY = Integer.MAX_VALUE, maxY = -1;
+            for (int code : columnLut) {
+                if (code >= 0) {
+                    minX = Math.min(minX, code);
+                    maxX = Math.max(maxX, code);
+                }
+            }
+            for (int code : rowLut) {
+                if (code >= 0) {
+                    minY = Math.min(minY, code / pixelWidth);
+                    maxY = Math.max(maxY, code / pixelWidth);
+                }
+            }
+            this.srcMinX = minX;
+            this.srcMaxX = maxX;
+            this.srcMinY = minY;
+            this.srcMaxY = maxY;
+        }
+    }
+
+    /**
+     * A chunk whose content never changes. Solid chunks are sent as a 1x1 image;
+     * {@link ChunkKind#BORDER_EDGE} chunks keep their lookup tables and are
+     * rendered once when sent.
+     */
+    private static final class StaticChunk {
+        final int chunkX;
+        final int chunkZ;
+        final int color;
+        @Nullable
+        final int[] rowLut;
+        @Nullable
+        final int[] columnLut;
+
+        StaticChunk(int chunkX, int chunkZ, int color, @Nullable int[] rowLut, @Nullable int[] columnLut) {
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+            this.color = color;
+            this.rowLut = rowLut;
+            this.columnLut = columnLut;
+        }
+    }
+
     private final DeltaCompressor compressor;
+    private final DirtyRegionTracker dirtyTracker;
+
+    /** Whether chunk hashes are computed while filling (hash delta modes). */
+    private final boolean hashChunks;
 
     /** World block coordinates of the display top-left corner. */
     private final int displayStartX;
@@ -82,11 +231,54 @@ public class MapDisplayRenderer {
     private final int innerMaxChunkX;
     private final int innerMaxChunkZ;
 
+    /** Chunks rendered every frame (DISPLAY and MIXED), nearest the display center first. */
+    private final DynamicChunk[] dynamicChunks;
+
+    // Per dynamic chunk: deferred by the chunk cap, and the last tick its source pixels changed
+    private final boolean[] pending;
+    private final int[] dirtyTick;
+    private int pendingCount;
+    // Frames rendered so far, counted whether or not they changed anything
+    private int renderTick;
+    // Chunks to render this tick as (priority tier * chunk count + chunk index), see renderDynamicChunks
+    private final int[] renderOrder;
+
+    /** Most display chunks sent per frame; 0 means no limit. */
+    private int maxChunksPerTick;
+
+    /** Chunks that never change (BORDER, BORDER_EDGE and PADDING), sent once. */
+    private final StaticChunk[] staticChunks;
+
     // Reusable chunk pixel buffer
     private final int[] chunkPixels = new int[CHUNK_IMAGE_PIXELS];
 
-    // Tracks which pure-black padding chunks have been sent (they never change)
-    private boolean[] paddingSent;
+    // Chunks of the packet being built (reused every frame)
+    private final MapChunk[] changedChunks;
+    private int changedCount;
+
+    // Source of packet objects in pooled mode, null to allocate fresh ones
+    @Nullable
+    private RenderPool pool;
+
+    // Palette-indexed rendering: the frame's palette, the indexed frame and a reusable tile
+    private final FramePalette palette = new FramePalette(BLACK, BORDER_COLOR);
+    private final byte[] indexedFrame;
+    private final byte[] chunkIndices = new byte[CHUNK_IMAGE_PIXELS];
+    private boolean paletteActive = true;
+
+    // Pixel format of the frames indexed since the last reset, null if none yet
+    @Nullable
+    private Boolean indexedFormatRgb;
+
+    // Whether the static chunks have been sent since construction / the last reset
+    private boolean staticChunksSent;
+
+    // Copy of the last rendered frame for keyframes, null unless keyframes are enabled
+    @Nullable
+    private int[] keyframeSource;
+    private boolean keyframeSourceRgb;
+    private boolean keyframeSourceValid;
+    private long keyframeVersion;
 
     /**
      * Creates a renderer with Game Boy default resolution (160x144).
@@ -104,6 +296,19 @@ public class MapDisplayRenderer {
      */
     public MapDisplayRenderer(double playerWorldX, double playerWorldZ, int mapScale,
                               int pixelWidth, int pixelHeight) {
+        this(playerWorldX, playerWorldZ, mapScale, pixelWidth, pixelHeight, DeltaCompressor.Mode.FULL);
+    }
+
+    /**
+     * @param playerWorldX player's world X position (display will be centered here)
+     * @param playerWorldZ player's world Z position (display will be centered here)
+     * @param mapScale     how many world blocks each pixel covers (1 = 1:1, 2 = 2x larger, etc.)
+     * @param pixelWidth   native display width in pixels (160 for GB, 240 for GBA)
+     * @param pixelHeight  native display height in pixels (144 for GB, 160 for GBA)
+     * @param deltaMode    how the delta compressor remembers previous chunks
+     */
+    public MapDisplayRenderer(double playerWorldX, double playerWorldZ, int mapScale,
+                              int pixelWidth, int pixelHeight, @Nonnull DeltaCompressor.Mode deltaMode) {
         this.mapScale = Math.max(1, mapScale);
         this.displayPixelWidth = pixelWidth;
         this.displayPixelHeight = pixelHeight;
@@ -112,9 +317,10 @@ public class MapDisplayRenderer {
         this.displayBlocksW = pixelWidth * this.mapScale;
         this.displayBlocksH = pixelHeight * this.mapScale;
 
-        // Center display on player position
-        this.displayStartX = (int) Math.round(playerWorldX) - displayBlocksW / 2;
-        this.displayStartZ = (int) Math.round(playerWorldZ) - displayBlocksH / 2;
+        // Center display on player position, snapped to a multiple of the scale so
+        // emulator pixels line up with chunk edges and chunk images can be reduced
+        this.displayStartX = Math.floorDiv((int) Math.round(playerWorldX) - displayBlocksW / 2, this.mapScale) * this.mapScale;
+        this.displayStartZ = Math.floorDiv((int) Math.round(playerWorldZ) - displayBlocksH / 2, this.mapScale) * this.mapScale;
 
         // Inner grid covers display + border
         int innerMinX = displayStartX - BORDER_BLOCKS;
@@ -137,10 +343,173 @@ public class MapDisplayRenderer {
         this.compressor = new DeltaCompressor(
                 innerMaxChunkX - innerMinChunkX,
                 innerMaxChunkZ - innerMinChunkZ,
-                CHUNK_IMAGE_PIXELS
+                CHUNK_IMAGE_PIXELS,
+                deltaMode
         );
+        this.hashChunks = deltaMode != DeltaCompressor.Mode.FULL;
+        this.dirtyTracker = new DirtyRegionTracker(pixelWidth, pixelHeight);
+        this.indexedFrame = new byte[pixelWidth * pixelHeight];
 
-        this.paddingSent = new boolean[gridWidth * gridHeight];
+        // Lookup tables are shared by every chunk in the same inner row / column
+        int innerW = innerMaxChunkX - innerMinChunkX;
+        int innerH = innerMaxChunkZ - innerMinChunkZ;
+        int[][] rowLuts = new int[innerH][];
+        for (int i = 0; i < innerH; i++) {
+            rowLuts[i] = buildLut((innerMinChunkZ + i) * CHUNK_BLOCKS,
+                    displayStartZ, displayBlocksH, this.mapScale, pixelWidth);
+        }
+        int[][] columnLuts = new int[innerW][];
+        for (int i = 0; i < innerW; i++) {
+            columnLuts[i] = buildLut((innerMinChunkX + i) * CHUNK_BLOCKS,
+                    displayStartX, displayBlocksW, this.mapScale, 1);
+        }
+
+        // Classify every chunk in the grid
+        List<DynamicChunk> dynamic = new ArrayList<>();
+        List<StaticChunk> fixed = new ArrayList<>();
+        for (int row = 0; row < gridHeight; row++) {
+            for (int col = 0; col < gridWidth; col++) {
+                int chunkX = gridMinChunkX + col;
+                int chunkZ = gridMinChunkZ + row;
+                int innerCol = chunkX - innerMinChunkX;
+                int innerRow = chunkZ - innerMinChunkZ;
+                boolean isInner = innerCol >= 0 && innerCol < innerW && innerRow >= 0 && innerRow < innerH;
+
+                ChunkKind kind = isInner
+                        ? classifyChunk(rowLuts[innerRow], columnLuts[innerCol])
+                        : ChunkKind.PADDING;
+                switch (kind) {
+                    case DISPLAY, MIXED, BORDER_EDGE -> {
+                        // Drop image rows/columns that only repeat their neighbours
+                        int factor = reductionFactor(rowLuts[innerRow], columnLuts[innerCol]);
+                        int[] rowLut = sampleLut(rowLuts[innerRow], factor);
+                        int[] columnLut = sampleLut(columnLuts[innerCol], factor);
+                        if (kind == ChunkKind.BORDER_EDGE) {
+                            fixed.add(new StaticChunk(chunkX, chunkZ, BLACK, rowLut, columnLut));
+                        } else {
+                            dynamic.add(new DynamicChunk(chunkX, chunkZ,
+                                    innerRow * innerW + innerCol, rowLut, columnLut, pixelWidth));
+                        }
+                    }
+                    case BORDER -> fixed.add(new StaticChunk(chunkX, chunkZ, BORDER_COLOR, null, null));
+                    case PADDING -> fixed.add(new StaticChunk(chunkX, chunkZ, BLACK, null, null));
+                }
+            }
+        }
+        // Most important first: a capped frame fills in from the middle of the screen outwards
+        double centerX = displayStartX + displayBlocksW / 2.0;
+        double centerZ = displayStartZ + displayBlocksH / 2.0;
+        dynamic.sort(Comparator.comparingDouble(chunk -> {
+            double dx = chunk.chunkX * CHUNK_BLOCKS + CHUNK_BLOCKS / 2.0 - centerX;
+            double dz = chunk.chunkZ * CHUNK_BLOCKS + CHUNK_BLOCKS / 2.0 - centerZ;
+            return dx * dx + dz * dz;
+        }));
+        this.dynamicChunks = dynamic.toArray(new DynamicChunk[0]);
+        this.pending = new boolean[dynamicChunks.length];
+        this.dirtyTick = new int[dynamicChunks.length];
+        Arrays.fill(dirtyTick, -RECENT_CHANGE_TICKS - 1);
+        this.renderOrder = new int[dynamicChunks.length];
+        this.staticChunks = fixed.toArray(new StaticChunk[0]);
+        this.changedChunks = new MapChunk[dynamicChunks.length + staticChunks.length];
+    }
+
+    /**
+     * Classifies an inner chunk from its row and column lookup tables.
+     * A pixel shows the display only when both its row and column are display
+     * rows/columns, and is black whenever its row or column is outside the border.
+     */
+    @Nonnull
+    static ChunkKind classifyChunk(@Nonnull int[] rowLut, @Nonnull int[] columnLut) {
+        boolean anyRowDisplay = false, allRowsDisplay = true, anyRowInBorder = false, anyRowOutside = false;
+        for (int code : rowLut) {
+            anyRowDisplay |= code >= 0;
+            allRowsDisplay &= code >= 0;
+            anyRowInBorder |= code != LUT_OUTSIDE;
+            anyRowOutside |= code == LUT_OUTSIDE;
+        }
+        boolean anyColDisplay = false, allColsDisplay = true, anyColInBorder = false, anyColOutside = false;
+        for (int code : columnLut) {
+            anyColDisplay |= code >= 0;
+            allColsDisplay &= code >= 0;
+            anyColInBorder |= code != LUT_OUTSIDE;
+            anyColOutside |= code == LUT_OUTSIDE;
+        }
+
+        if (!anyRowInBorder || !anyColInBorder) {
+            return ChunkKind.PADDING;
+        }
+        if (allRowsDisplay && allColsDisplay) {
+            return ChunkKind.DISPLAY;
+        }
+        if (anyRowDisplay && anyColDisplay) {
+            return ChunkKind.MIXED;
+        }
+        if (!anyRowOutside && !anyColOutside) {
+            return ChunkKind.BORDER;
+        }
+        return ChunkKind.BORDER_EDGE;
+    }
+
+    /**
+     * Returns the largest factor (a power of two up to {@link #CHUNK_IMAGE_SIZE})
+     * by which a chunk image can be shrunk without losing information: every
+     * aligned block of {@code factor} entries in both lookup tables maps to the
+     * same source, so the image is made of identical {@code factor x factor} blocks.
+     */
+    static int reductionFactor(@Nonnull int[] rowLut, @Nonnull int[] columnLut) {
+        for (int factor = CHUNK_IMAGE_SIZE; factor > 1; factor >>= 1) {
+            if (isBlockConstant(rowLut, factor) && isBlockConstant(columnLut, factor)) {
+                return factor;
+            }
+        }
+        return 1;
+    }
+
+    private static boolean isBlockConstant(@Nonnull int[] lut, int factor) {
+        for (int p = 0; p < lut.length; p++) {
+            if (lut[p] != lut[p - p % factor]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Keeps every {@code factor}-th entry of a lookup table.
+     */
+    @Nonnull
+    static int[] sampleLut(@Nonnull int[] lut, int factor) {
+        int[] sampled = new int[lut.length / factor];
+        for (int i = 0; i < sampled.length; i++) {
+            sampled[i] = lut[i * factor];
+        }
+        return sampled;
+    }
+
+    /**
+     * Builds the lookup table for one axis of a chunk image.
+     *
+     * @param chunkWorldStart world block coordinate of the chunk's first block on this axis
+     * @param dispStart       display start in world blocks on this axis
+     * @param dispSize        display size in world blocks on this axis
+     * @param scale           world blocks per emulator pixel
+     * @param stride          multiplier applied to the emulator coordinate (frame width for rows, 1 for columns)
+     */
+    static int[] buildLut(int chunkWorldStart, int dispStart, int dispSize, int scale, int stride) {
+        int[] lut = new int[CHUNK_IMAGE_SIZE];
+        int borderMin = dispStart - BORDER_BLOCKS;
+        int borderMax = dispStart + dispSize + BORDER_BLOCKS;
+        for (int p = 0; p < CHUNK_IMAGE_SIZE; p++) {
+            int world = chunkWorldStart + p / PX_PER_BLOCK;
+            if (world >= dispStart && world < dispStart + dispSize) {
+                lut[p] = ((world - dispStart) / scale) * stride;
+            } else if (world >= borderMin && world < borderMax) {
+                lut[p] = LUT_BORDER;
+            } else {
+                lut[p] = LUT_OUTSIDE;
+            }
+        }
+        return lut;
     }
 
     /**
@@ -159,62 +528,423 @@ public class MapDisplayRenderer {
      */
     @Nullable
     public UpdateWorldMap renderFrame(@Nonnull int[] rgbaPixels) {
-        List<MapChunk> changedChunks = new ArrayList<>();
+        return render(rgbaPixels, false);
+    }
 
-        int innerW = innerMaxChunkX - innerMinChunkX;
+    /**
+     * Renders a raw emulator frame (24-bit RGB, as produced by the backends),
+     * converting to RGBA in the same pass that builds the chunk images.
+     *
+     * @param rgbPixels RGB pixel array (width * height ints)
+     * @return packet with changed chunks, or null if nothing changed
+     */
+    @Nullable
+    public UpdateWorldMap renderRgbFrame(@Nonnull int[] rgbPixels) {
+        return render(rgbPixels, true);
+    }
 
-        for (int row = 0; row < gridHeight; row++) {
-            for (int col = 0; col < gridWidth; col++) {
-                int chunkX = gridMinChunkX + col;
-                int chunkZ = gridMinChunkZ + row;
-                int gridIndex = row * gridWidth + col;
-
-                boolean isInner = chunkX >= innerMinChunkX && chunkX < innerMaxChunkX
-                        && chunkZ >= innerMinChunkZ && chunkZ < innerMaxChunkZ;
-
-                if (isInner) {
-                    // Display/border chunk - render full detail
-                    extractChunk(rgbaPixels, chunkX, chunkZ, mapScale, chunkPixels,
-                            displayStartX, displayStartZ, displayBlocksW, displayBlocksH,
-                            displayPixelWidth, displayPixelHeight);
-
-                    int innerCol = chunkX - innerMinChunkX;
-                    int innerRow = chunkZ - innerMinChunkZ;
-                    int innerIndex = innerRow * innerW + innerCol;
-
-                    if (compressor.hasChanged(innerIndex, chunkPixels)) {
-                        MapImage image = new MapImage(
-                                CHUNK_IMAGE_SIZE, CHUNK_IMAGE_SIZE,
-                                Arrays.copyOf(chunkPixels, CHUNK_IMAGE_PIXELS)
-                        );
-                        changedChunks.add(new MapChunk(chunkX, chunkZ, image));
-                    }
+    @Nullable
+    private UpdateWorldMap render(@Nonnull int[] frame, boolean convertRgb) {
+        changedCount = 0;
+
+        // Static chunks never change - send them once
+        if (!staticChunksSent) {
+            staticChunksSent = true;
+            for (StaticChunk chunk : staticChunks) {
+                addChangedChunk(chunk.chunkX, chunk.chunkZ, renderStaticImage(chunk));
+            }
+        }
+
+        // Palette keys are raw frame values, so switching between RGB and RGBA input starts over
+        if (paletteActive && indexedFormatRgb != null && indexedFormatRgb != convertRgb) {
+            palette.clear();
+            compressor.reset();
+            dirtyTracker.invalidate();
+        }
+
+        // Diff the source frame first; an unchanged frame needs no chunk work at all
+        renderTick++;
+        boolean frameDirty = dirtyTracker.update(frame);
+        if (frameDirty && paletteActive && !indexDirtyRows(frame, convertRgb)) {
+            // Too many colors for the palette - use RGBA tiles until the next reset
+            paletteActive = false;
+            compressor.reset();
+        }
+        if (frameDirty || pendingCount > 0) {
+            if (paletteActive) {
+                indexedFormatRgb = convertRgb;
+            }
+            renderDynamicChunks(frame, convertRgb, frameDirty);
+        }
+
+        if (keyframeSource != null && (frameDirty || !keyframeSourceValid || keyframeSourceRgb != convertRgb)) {
+            System.arraycopy(frame, 0, keyframeSource, 0, keyframeSource.length);
+            keyframeSourceRgb = convertRgb;
+            keyframeSourceValid = true;
+            keyframeVersion++;
+        }
+
+        return changedCount == 0 ? null : buildPacket();
+    }
+
+    /**
+     * Renders every chunk that never changes (border and padding), for a viewer
+     * who has seen nothing of the display yet. The result is the same for the
+     * lifetime of the renderer. Together with {@link #renderKeyframe()} it covers
+     * the whole grid.
+     *
+     * In pooled mode the packet must be released like any other.
+     */
+    @Nonnull
+    public UpdateWorldMap renderStaticChunks() {
+        changedCount = 0;
+        for (StaticChunk chunk : staticChunks) {
+            addChangedChunk(chunk.chunkX, chunk.chunkZ, renderStaticImage(chunk));
+        }
+        return buildPacket();
+    }
+
+    /**
+     * Renders every display chunk from the last rendered frame, for a viewer
+     * who has seen nothing of it yet. The delta state is not touched: later
+     * {@link #renderFrame} packets still only carry changes, and apply on top
+     * of this keyframe.
+     *
+     * In pooled mode the packet must be released like any other.
+     *
+     * @return the display chunks, or null if keyframes are disabled or no frame has been rendered since enabling them
+     */
+    @Nullable
+    public UpdateWorldMap renderKeyframe() {
+        if (keyframeSource == null || !keyframeSourceValid) {
+            return null;
+        }
+        changedCount = 0;
+        for (DynamicChunk chunk : dynamicChunks) {
+            int[] pixels = newPixels(chunk.pixelCount);
+            fillChunk(keyframeSource, keyframeSourceRgb, chunk.rowLut, chunk.columnLut, pixels);
+            addChangedChunk(chunk.chunkX, chunk.chunkZ, newImage(chunk.imageSize, pixels));
+        }
+        return buildPacket();
+    }
+
+    /**
+     * Starts or stops keeping a copy of each rendered frame for
+     * {@link #renderKeyframe()}. A keyframe is available once a frame has been
+     * rendered with keyframes enabled.
+     */
+    public void setKeyframesEnabled(boolean enabled) {
+        if (!enabled) {
+            keyframeSource = null;
+            keyframeSourceValid = false;
+        } else if (keyframeSource == null) {
+            keyframeSource = new int[displayPixelWidth * displayPixelHeight];
+            keyframeSourceValid = false;
+        }
+    }
+
+    /** Whether {@link #renderKeyframe()} currently has a frame to render. */
+    public boolean hasKeyframe() {
+        return keyframeSource != null && keyframeSourceValid;
+    }
+
+    /**
+     * Changes whenever the frame behind {@link #renderKeyframe()} changes, so a
+     * caller can reuse an encoded keyframe while the version stays the same.
+     */
+    public long getKeyframeVersion() {
+        return keyframeVersion;
+    }
+
+    /**
+     * Wraps the chunks collected in {@link #changedChunks} into a packet.
+     */
+    @Nonnull
+    private UpdateWorldMap buildPacket() {
+        UpdateWorldMap packet;
+        if (pool != null) {
+            packet = pool.acquirePacket(changedChunks, changedCount);
+        } else {
+            packet = new UpdateWorldMap(
+                    Arrays.copyOf(changedChunks, changedCount),
+                    null,
+                    null
+            );
+        }
+        // Don't keep the chunks reachable from the scratch array
+        Arrays.fill(changedChunks, 0, changedCount, null);
+        return packet;
+    }
+
+    private void addChangedChunk(int chunkX, int chunkZ, @Nonnull MapImage image) {
+        changedChunks[changedCount++] = pool != null
+                ? pool.acquireChunk(chunkX, chunkZ, image)
+                : new MapChunk(chunkX, chunkZ, image);
+    }
+
+    @Nonnull
+    private MapImage newImage(int size, @Nonnull int[] data) {
+        return pool != null ? pool.acquireImage(size, size, data) : new MapImage(size, size, data);
+    }
+
+    @Nonnull
+    private int[] newPixels(int length) {
+        return pool != null ? pool.acquirePixels(length) : new int[length];
+    }
+
+    /**
+     * Renders the display chunks that need it, in priority order. Chunks deferred
+     * by the per-tick cap go first; then chunks whose source pixels changed. In
+     * each group, chunks that also changed within the last
+     * {@link #RECENT_CHANGE_TICKS} ticks go first, then the rest nearest the
+     * center first. Once the cap is reached, remaining chunks are marked pending
+     * and rendered from whatever frame is current on a later tick, so several
+     * changes to the same chunk are coalesced into one update.
+     */
+    private void renderDynamicChunks(@Nonnull int[] frame, boolean convertRgb, boolean frameDirty) {
+        int budget = maxChunksPerTick > 0 ? maxChunksPerTick : Integer.MAX_VALUE;
+        int chunkCount = dynamicChunks.length;
+        int count = 0;
+        for (int i = 0; i < chunkCount; i++) {
+            DynamicChunk chunk = dynamicChunks[i];
+            boolean dirty = frameDirty
+                    && dirtyTracker.isDirty(chunk.srcMinX, chunk.srcMaxX, chunk.srcMinY, chunk.srcMaxY);
+            if (!dirty && !pending[i]) {
+                continue;
+            }
+            boolean recent = renderTick - dirtyTick[i] <= RECENT_CHANGE_TICKS;
+            if (dirty) {
+                dirtyTick[i] = renderTick;
+            }
+            int tier = (pending[i] ? 0 : 2) + (recent ? 0 : 1);
+            renderOrder[count++] = tier * chunkCount + i;
+        }
+        // Chunks are indexed nearest the center first, so within a tier the index is the tie-break.
+        // Order only matters when some of them have to wait.
+        if (count > budget) {
+            Arrays.sort(renderOrder, 0, count);
+        }
+
+        for (int k = 0; k < count; k++) {
+            int i = renderOrder[k] % chunkCount;
+            if (budget == 0) {
+                if (!pending[i]) {
+                    pending[i] = true;
+                    pendingCount++;
+                }
+                continue;
+            }
+            if (pending[i]) {
+                pending[i] = false;
+                pendingCount--;
+            }
+            if (renderChunk(dynamicChunks[i], frame, convertRgb)) {
+                budget--;
+            }
+        }
+    }
+
+    /**
+     * Fills one display chunk from the current frame (indexed or RGBA) and adds
+     * it to the packet if it differs from what was last sent.
+     *
+     * @return true if the chunk was added
+     */
+    private boolean renderChunk(@Nonnull DynamicChunk chunk, @Nonnull int[] frame, boolean convertRgb) {
+        int[] pixels;
+        if (paletteActive) {
+            long hash = fillIndexedChunk(indexedFrame, chunk.rowLut, chunk.columnLut, chunkIndices, hashChunks);
+            if (!compressor.hasChanged(chunk.innerIndex, chunkIndices, chunk.pixelCount, hash)) {
+                return false;
+            }
+            // The map protocol only carries RGBA, so expand just the tiles being sent
+            pixels = newPixels(chunk.pixelCount);
+            palette.expand(chunkIndices, chunk.pixelCount, pixels);
+        } else {
+            long hash = fillChunk(frame, convertRgb, chunk.rowLut, chunk.columnLut, chunkPixels, hashChunks);
+            if (!compressor.hasChanged(chunk.innerIndex, chunkPixels, chunk.pixelCount, hash)) {
+                return false;
+            }
+            pixels = newPixels(chunk.pixelCount);
+            System.arraycopy(chunkPixels, 0, pixels, 0, chunk.pixelCount);
+        }
+        addChangedChunk(chunk.chunkX, chunk.chunkZ, newImage(chunk.imageSize, pixels));
+        return true;
+    }
+
+    /**
+     * Maps the dirty spans of the frame into the indexed frame.
+     *
+     * @return false if the palette overflowed
+     */
+    private boolean indexDirtyRows(@Nonnull int[] frame, boolean convertRgb) {
+        for (int y = 0; y < displayPixelHeight; y++) {
+            int minX = dirtyTracker.getDirtyMinX(y);
+            int maxX = dirtyTracker.getDirtyMaxX(y);
+            if (maxX < 0) {
+                continue;
+            }
+            int rowStart = y * displayPixelWidth;
+            if (!palette.indexSpan(frame, convertRgb, indexedFrame, rowStart + minX, rowStart + maxX + 1)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Nonnull
+    private MapImage renderStaticImage(@Nonnull StaticChunk chunk) {
+        if (chunk.rowLut == null || chunk.columnLut == null) {
+            // Solid color - use a small 1x1 image, client stretches to fill chunk
+            int[] pixel = newPixels(1);
+            pixel[0] = chunk.color;
+            return newImage(1, pixel);
+        }
+        // Border/black only: no lookup resolves to a frame pixel, so no frame is needed
+        int size = chunk.rowLut.length;
+        int[] pixels = newPixels(size * size);
+        fillChunk(NO_FRAME, false, chunk.rowLut, chunk.columnLut, pixels);
+        return newImage(size, pixels);
+    }
+
+    /**
+     * Fused per-chunk kernel: fills a chunk image from the frame using the
+     * precomputed row and column lookup tables, optionally converting RGB to RGBA.
+     *
+     * @param frame      the full frame (RGB if {@code convertRgb}, otherwise RGBA)
+     * @param convertRgb whether frame pixels need RGB -> RGBA conversion
+     * @param rowLut     lookup table for the chunk's image rows (see {@link #buildLut})
+     * @param columnLut  lookup table for the chunk's image columns (same length as rowLut)
+     * @param dest       destination array (at least rowLut.length * columnLut.length ints)
+     */
+    static void fillChunk(@Nonnull int[] frame, boolean convertRgb,
+                          @Nonnull int[] rowLut, @Nonnull int[] columnLut, @Nonnull int[] dest) {
+        fillChunk(frame, convertRgb, rowLut, columnLut, dest, false);
+    }
+
+    /**
+     * Same as {@link #fillChunk(int[], boolean, int[], int[], int[])}, optionally
+     * hashing each row while it is still hot in cache.
+     *
+     * @param computeHash whether to compute the content hash
+     * @return the chunk's {@link DeltaCompressor#hash} if {@code computeHash}, otherwise 0
+     */
+    static long fillChunk(@Nonnull int[] frame, boolean convertRgb,
+                          @Nonnull int[] rowLut, @Nonnull int[] columnLut, @Nonnull int[] dest,
+                          boolean computeHash) {
+        int size = columnLut.length;
+        int runStart = contiguousRunStart(columnLut);
+        long hash = DeltaCompressor.hashSeed();
+        for (int py = 0; py < rowLut.length; py++) {
+            int rowCode = rowLut[py];
+            int destRow = py * size;
+
+            if (py > 0 && rowCode == rowLut[py - 1]) {
+                // Same source row as the previous image row (scaled up or border)
+                System.arraycopy(dest, destRow - size, dest, destRow, size);
+            } else if (rowCode == LUT_OUTSIDE) {
+                Arrays.fill(dest, destRow, destRow + size, BLACK);
+            } else if (rowCode == LUT_BORDER) {
+                for (int px = 0; px < size; px++) {
+                    dest[destRow + px] = columnLut[px] == LUT_OUTSIDE ? BLACK : BORDER_COLOR;
+                }
+            } else if (runStart >= 0) {
+                // The row is a straight run of frame pixels: a bulk (SIMD) copy instead of a gather
+                if (convertRgb) {
+                    ColorMapper.toRgba(frame, rowCode + runStart, dest, destRow, size);
                 } else {
-                    // Padding chunk - solid black, send once
-                    if (!paddingSent[gridIndex]) {
-                        paddingSent[gridIndex] = true;
-                        // Use a small 1x1 image - client stretches to fill chunk
-                        MapImage blackImage = new MapImage(1, 1, new int[]{BLACK});
-                        changedChunks.add(new MapChunk(chunkX, chunkZ, blackImage));
+                    System.arraycopy(frame, rowCode + runStart, dest, destRow, size);
+                }
+            } else {
+                for (int px = 0; px < size; px++) {
+                    int col = columnLut[px];
+                    if (col >= 0) {
+                        int pixel = frame[rowCode + col];
+                        dest[destRow + px] = convertRgb ? ColorMapper.toRgba(pixel) : pixel;
+                    } else {
+                        dest[destRow + px] = col == LUT_BORDER ? BORDER_COLOR : BLACK;
                     }
                 }
             }
+
+            if (computeHash) {
+                hash = DeltaCompressor.hashInto(hash, dest, destRow, destRow + size);
+            }
         }
+        return computeHash ? DeltaCompressor.finishHash(hash) : 0;
+    }
 
-        if (changedChunks.isEmpty()) {
-            return null;
+    /**
+     * Palette-indexed counterpart of {@link #fillChunk}: fills a chunk tile with
+     * {@link FramePalette} indices from an indexed frame.
+     *
+     * @param indexedFrame the full frame as palette indices
+     * @param rowLut       lookup table for the chunk's image rows (see {@link #buildLut})
+     * @param columnLut    lookup table for the chunk's image columns
+     * @param dest         destination tile (at least rowLut.length * columnLut.length bytes)
+     * @param computeHash  whether to compute the content hash
+     * @return the tile's {@link DeltaCompressor#hash(byte[], int)} if {@code computeHash}, otherwise 0
+     */
+    static long fillIndexedChunk(@Nonnull byte[] indexedFrame, @Nonnull int[] rowLut, @Nonnull int[] columnLut,
+                                 @Nonnull byte[] dest, boolean computeHash) {
+        int size = columnLut.length;
+        int runStart = contiguousRunStart(columnLut);
+        long hash = DeltaCompressor.hashSeed();
+        for (int py = 0; py < rowLut.length; py++) {
+            int rowCode = rowLut[py];
+            int destRow = py * size;
+
+            if (py > 0 && rowCode == rowLut[py - 1]) {
+                System.arraycopy(dest, destRow - size, dest, destRow, size);
+            } else if (rowCode == LUT_OUTSIDE) {
+                Arrays.fill(dest, destRow, destRow + size, FramePalette.BLACK_INDEX);
+            } else if (rowCode == LUT_BORDER) {
+                for (int px = 0; px < size; px++) {
+                    dest[destRow + px] = columnLut[px] == LUT_OUTSIDE ? FramePalette.BLACK_INDEX : FramePalette.BORDER_INDEX;
+                }
+            } else if (runStart >= 0) {
+                System.arraycopy(indexedFrame, rowCode + runStart, dest, destRow, size);
+            } else {
+                for (int px = 0; px < size; px++) {
+                    int col = columnLut[px];
+                    if (col >= 0) {
+                        dest[destRow + px] = indexedFrame[rowCode + col];
+                    } else {
+                        dest[destRow + px] = col == LUT_BORDER ? FramePalette.BORDER_INDEX : FramePalette.BLACK_INDEX;
+                    }
+                }
+            }
+
+            if (computeHash) {
+                hash = DeltaCompressor.hashInto(hash, dest, destRow, destRow + size);
+            }
         }
+        return computeHash ? DeltaCompressor.finishHash(hash) : 0;
+    }
 
-        return new UpdateWorldMap(
-                changedChunks.toArray(new MapChunk[0]),
-                null,
-                null
-        );
+    /**
+     * Returns the first frame column of a column lookup table that maps every
+     * image column to the next frame column (a display chunk once its image has
+     * been reduced, see {@link #reductionFactor}), or -1 if it doesn't.
+     */
+    static int contiguousRunStart(@Nonnull int[] columnLut) {
+        int first = columnLut[0];
+        if (first < 0) {
+            return -1;
+        }
+        for (int px = 1; px < columnLut.length; px++) {
+            if (columnLut[px] != first + px) {
+                return -1;
+            }
+        }
+        return first;
     }
 
     /**
      * Extracts the image for a single map chunk from the emulator frame.
      * Uses absolute world coordinates for the chunk position and display area.
+     * This is the straightforward reference implementation of what
+     * {@link #fillChunk} computes from lookup tables.
      *
      * Rendering zones (in world block coordinates):
      *   - Display area: [dispStartX, dispStartX+dispW) x [dispStartZ, dispStartZ+dispH) -> frame pixels
@@ -245,6 +975,8 @@ public class MapDisplayRenderer {
         int borderMaxX = dispStartX + dispW + BORDER_BLOCKS;
         int borderMaxZ = dispStartZ + dispH + BORDER_BLOCKS;
 
+        // Source of the previous image row: a frame row offset, LUT_BORDER or LUT_OUTSIDE
+        int previousRow = Integer.MIN_VALUE;
         for (int py = 0; py < CHUNK_IMAGE_SIZE; py++) {
             int worldZ = chunkWorldZ + py / PX_PER_BLOCK;
             int destRow = py * CHUNK_IMAGE_SIZE;
@@ -253,36 +985,58 @@ public class MapDisplayRenderer {
             boolean zInDisplay = worldZ >= dispStartZ && worldZ < dispStartZ + dispH;
             boolean zInBorder = worldZ >= borderMinZ && worldZ < borderMaxZ;
 
+            int emuY = zInDisplay ? (worldZ - dispStartZ) / scale : -1;
+            int frameRow = (emuY >= 0 && emuY < pixelH) ? emuY * pixelW : -1;
+            int rowSource = !zInBorder ? LUT_OUTSIDE : frameRow >= 0 ? frameRow : LUT_BORDER;
+
+            if (rowSource == previousRow) {
+                // Scaled-up emulator row (or another border/black row): copy the one above
+                System.arraycopy(dest, destRow - CHUNK_IMAGE_SIZE, dest, destRow, CHUNK_IMAGE_SIZE);
+                continue;
+            }
+            previousRow = rowSource;
+
             if (!zInBorder) {
                 // Completely outside border -> black row
                 Arrays.fill(dest, destRow, destRow + CHUNK_IMAGE_SIZE, BLACK);
                 continue;
             }
 
-            int emuY = zInDisplay ? (worldZ - dispStartZ) / scale : -1;
-            int frameRow = (emuY >= 0 && emuY < pixelH) ? emuY * pixelW : -1;
-
-            for (int px = 0; px < CHUNK_IMAGE_SIZE; px++) {
+            // Fill runs of pixels that share one source: an emulator pixel spans
+            // scale * PX_PER_BLOCK image pixels, the border and outside zones more
+            int px = 0;
+            while (px < CHUNK_IMAGE_SIZE) {
                 int worldX = chunkWorldX + px / PX_PER_BLOCK;
 
                 boolean xInDisplay = worldX >= dispStartX && worldX < dispStartX + dispW;
                 boolean xInBorder = worldX >= borderMinX && worldX < borderMaxX;
 
-                if (zInDisplay && xInDisplay && frameRow >= 0) {
-                    // Inside display area -> emulator pixel
+                int color;
+                int runEndX;
+                if (xInDisplay) {
                     int emuX = (worldX - dispStartX) / scale;
-                    if (emuX >= 0 && emuX < pixelW) {
-                        dest[destRow + px] = frame[frameRow + emuX];
+                    runEndX = Math.min(dispStartX + (emuX + 1) * scale, dispStartX + dispW);
+                    if (frameRow >= 0) {
+                        // Inside display area -> emulator pixel
+                        color = emuX < pixelW ? frame[frameRow + emuX] : BLACK;
                     } else {
-                        dest[destRow + px] = BLACK;
+                        // Border row crossing the display columns -> gray
+                        color = BORDER_COLOR;
                     }
-                } else if (zInBorder && xInBorder) {
+                } else if (xInBorder) {
                     // Inside border but outside display -> gray
-                    dest[destRow + px] = BORDER_COLOR;
+                    color = BORDER_COLOR;
+                    runEndX = worldX < dispStartX ? dispStartX : borderMaxX;
                 } else {
                     // Outside everything -> black
-                    dest[destRow + px] = BLACK;
+                    color = BLACK;
+                    runEndX = worldX < borderMinX ? borderMinX : Integer.MAX_VALUE;
                 }
+
+                long runEnd = ((long) runEndX - chunkWorldX) * PX_PER_BLOCK;
+                int end = (int) Math.min(runEnd, CHUNK_IMAGE_SIZE);
+                Arrays.fill(dest, destRow + px, destRow + end, color);
+                px = end;
             }
         }
     }
@@ -296,11 +1050,36 @@ public class MapDisplayRenderer {
 
     /**
      * Forces a full redraw on the next frame (resets delta compression state
-     * and re-sends all padding chunks).
+     * and re-sends all static chunks).
      */
     public void reset() {
         compressor.reset();
-        paddingSent = new boolean[gridWidth * gridHeight];
+        dirtyTracker.invalidate();
+        staticChunksSent = false;
+        palette.clear();
+        paletteActive = true;
+        indexedFormatRgb = null;
+        Arrays.fill(pending, false);
+        pendingCount = 0;
+    }
+
+    /**
+     * Switches pooled rendering on (or off with null). In pooled mode every packet
+     * is built from objects of the given pool; the caller must
+     * {@link RenderPool#release release} each packet once it has been serialized.
+     */
+    public void setRenderPool(@Nullable RenderPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Limits how many display chunks a single frame sends; the rest are deferred
+     * to later frames. Static chunks (sent once) are not counted.
+     *
+     * @param maxChunksPerTick the cap, or 0 for no limit
+     */
+    public void setMaxChunksPerTick(int maxChunksPerTick) {
+        this.maxChunksPerTick = Math.max(0, maxChunksPerTick);
     }
 
     public int getDisplayStartX() { return displayStartX; }
@@ -312,6 +1091,12 @@ public class MapDisplayRenderer {
     public int getMapScale() { return mapScale; }
     public int getInnerGridWidth() { return innerMaxChunkX - innerMinChunkX; }
     public int getInnerGridHeight() { return innerMaxChunkZ - innerMinChunkZ; }
+    /** Number of chunks that are re-rendered every frame (the rest are static). */
+    public int getDynamicChunkCount() { return dynamicChunks.length; }
+    /** Number of display chunks deferred by the chunk cap, waiting to be sent. */
+    public int getPendingChunkCount() { return pendingCount; }
+    /** Whether chunks are currently built as palette-indexed tiles. */
+    public boolean isPaletteActive() { return paletteActive; }
     public int getDisplayPixelWidth() { return displayPixelWidth; }
     public int getDisplayPixelHeight() { return displayPixelHeight; }
 }
@@ -0,0 +1,179 @@
+package dev.chasem.hg.virtualtale.display;
+
+import com.hypixel.hytale.protocol.packets.worldmap.MapChunk;
+import com.hypixel.hytale.protocol.packets.worldmap.MapImage;
+import com.hypixel.hytale.protocol.packets.worldmap.UpdateWorldMap;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-session pool of the objects that make up an {@link UpdateWorldMap}:
+ * chunk pixel arrays, {@link MapImage}s, {@link MapChunk}s, chunk arrays and
+ * the packet itself.
+ *
+ * A renderer with a pool builds every packet from pooled objects. Once the
+ * packet has been serialized, {@link #release} returns all of it to the pool,
+ * so in steady state a session builds its packets without allocating any
+ * packet objects or pixel arrays. Serializing a packet still allocates its
+ * encoded buffer every frame; that buffer belongs to Hytale's packet cache
+ * and can't be pooled from here. A released packet must not be touched again.
+ *
+ * Chunk images are square with power-of-two sides (1x1 up to 64x64), so pixel
+ * arrays are pooled by power-of-two length. Not thread-safe: a pool belongs to
+ * one session's render thread.
+ */
+public class RenderPool {
+
+    /** Largest pooled pixel array (one full 64x64 chunk image). */
+    private static final int MAX_PIXELS_LOG2 = 12;
+
+    /** Upper bound on idle objects kept per kind, so a one-off burst doesn't pin memory forever. */
+    private static final int MAX_IDLE = 1024;
+
+    // Indexed by log2 of the array length
+    private final List<ArrayDeque<int[]>> pixelArrays = new ArrayList<>(MAX_PIXELS_LOG2 + 1);
+    private final ArrayDeque<MapImage> images = new ArrayDeque<>();
+    private final ArrayDeque<MapChunk> chunks = new ArrayDeque<>();
+    private final Map<Integer, ArrayDeque<MapChunk[]>> chunkArrays = new HashMap<>();
+    private final ArrayDeque<UpdateWorldMap> packets = new ArrayDeque<>();
+
+    // Number of objects created because the pool was empty
+    private long allocations;
+
+    public RenderPool() {
+        for (int i = 0; i <= MAX_PIXELS_LOG2; i++) {
+            pixelArrays.add(new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * Returns a pixel array of exactly {@code length} ints. Contents are undefined.
+     */
+    @Nonnull
+    public int[] acquirePixels(int length) {
+        int slot = pixelSlot(length);
+        if (slot >= 0) {
+            int[] pixels = pixelArrays.get(slot).poll();
+            if (pixels != null) {
+                return pixels;
+            }
+        }
+        allocations++;
+        return new int[length];
+    }
+
+    @Nonnull
+    public MapImage acquireImage(int width, int height, @Nonnull int[] data) {
+        MapImage image = images.poll();
+        if (image == null) {
+            allocations++;
+            image = new MapImage();
+        }
+        image.width = width;
+        image.height = height;
+        image.data = data;
+        return image;
+    }
+
+    @Nonnull
+    public MapChunk acquireChunk(int chunkX, int chunkZ, @Nonnull MapImage image) {
+        MapChunk chunk = chunks.poll();
+        if (chunk == null) {
+            allocations++;
+            chunk = new MapChunk();
+        }
+        chunk.chunkX = chunkX;
+        chunk.chunkZ = chunkZ;
+        chunk.image = image;
+        return chunk;
+    }
+
+    /**
+     * Returns an update packet holding exactly {@code count} chunks, which are
+     * copied from {@code source}.
+     */
+    @Nonnull
+    public UpdateWorldMap acquirePacket(@Nonnull MapChunk[] source, int count) {
+        MapChunk[] array = null;
+        ArrayDeque<MapChunk[]> arrays = chunkArrays.get(count);
+        if (arrays != null) {
+            array = arrays.poll();
+        }
+        if (array == null) {
+            allocations++;
+            array = new MapChunk[count];
+        }
+        System.arraycopy(source, 0, array, 0, count);
+
+        UpdateWorldMap packet = packets.poll();
+        if (packet == null) {
+            allocations++;
+            packet = new UpdateWorldMap();
+        }
+        packet.chunks = array;
+        packet.addedMarkers = null;
+        packet.removedMarkers = null;
+        return packet;
+    }
+
+    /**
+     * Returns a serialized packet and everything it references to the pool.
+     */
+    public void release(@Nonnull UpdateWorldMap packet) {
+        MapChunk[] array = packet.chunks;
+        packet.chunks = null;
+        if (array != null) {
+            for (int i = 0; i < array.length; i++) {
+                MapChunk chunk = array[i];
+                array[i] = null;
+                if (chunk != null) {
+                    releaseChunk(chunk);
+                }
+            }
+            offer(chunkArrays.computeIfAbsent(array.length, n -> new ArrayDeque<>()), array);
+        }
+        offer(packets, packet);
+    }
+
+    private void releaseChunk(@Nonnull MapChunk chunk) {
+        MapImage image = chunk.image;
+        chunk.image = null;
+        if (image != null) {
+            int[] data = image.data;
+            image.data = null;
+            if (data != null) {
+                int slot = pixelSlot(data.length);
+                if (slot >= 0) {
+                    offer(pixelArrays.get(slot), data);
+                }
+            }
+            offer(images, image);
+        }
+        offer(chunks, chunk);
+    }
+
+    private static <T> void offer(@Nonnull ArrayDeque<T> deque, @Nonnull T value) {
+        if (deque.size() < MAX_IDLE) {
+            deque.push(value);
+        }
+    }
+
+    /** Pool slot for a pixel array length, or -1 if arrays of that length aren't pooled. */
+    private static int pixelSlot(int length) {
+        if (length <= 0 || Integer.bitCount(length) != 1) {
+            return -1;
+        }
+        int log2 = Integer.numberOfTrailingZeros(length);
+        return log2 <= MAX_PIXELS_LOG2 ? log2 : -1;
+    }
+
+    /** Number of objects this pool had to create because none were free. */
+    public long getAllocations() {
+        return allocations;
+    }
+}
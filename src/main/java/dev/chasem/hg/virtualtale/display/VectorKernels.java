@@ -0,0 +1,43 @@
+package dev.chasem.hg.virtualtale.display;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import javax.annotation.Nonnull;
+
+/**
+ * SIMD versions of the per-pixel color kernels, using the JDK Vector API at
+ * the platform's preferred width (8 ints with AVX2, 4 with SSE / NEON).
+ *
+ * Only use through the callers that check {@link VectorSupport#ENABLED};
+ * loading this class without the {@code jdk.incubator.vector} module fails.
+ */
+final class VectorKernels {
+
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    private VectorKernels() {
+    }
+
+    static int laneCount() {
+        return SPECIES.length();
+    }
+
+    /**
+     * RGB -> RGBA for {@code len} pixels (see {@link ColorMapper#toRgba(int)}).
+     */
+    static void toRgba(@Nonnull int[] src, int srcPos, @Nonnull int[] dest, int destPos, int len) {
+        int i = 0;
+        int upper = SPECIES.loopBound(len);
+        for (; i < upper; i += SPECIES.length()) {
+            IntVector.fromArray(SPECIES, src, srcPos + i)
+                    .lanewise(VectorOperators.LSHL, 8)
+                    .or(0xFF)
+                    .intoArray(dest, destPos + i);
+        }
+        for (; i < len; i++) {
+            dest[destPos + i] = (src[srcPos + i] << 8) | 0xFF;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package dev.chasem.hg.virtualtale.display;
+
+/**
+ * Decides once, at class load, whether the {@link VectorKernels} (JDK Vector
+ * API) are used.
+ *
+ * The Vector API lives in the incubator module {@code jdk.incubator.vector},
+ * which is only resolved when the JVM is started with
+ * {@code --add-modules jdk.incubator.vector}. Without it, or with
+ * {@code -Dvirtualtale.vector=false}, all kernels use their scalar versions.
+ * {@link VectorKernels} is only referenced behind {@link #ENABLED}, so it is
+ * never loaded when the module is missing.
+ */
+final class VectorSupport {
+
+    /** System property that disables the vector kernels when set to {@code false}. */
+    static final String PROPERTY = "virtualtale.vector";
+
+    static final boolean ENABLED = detect();
+
+    private VectorSupport() {
+    }
+
+    private static boolean detect() {
+        if ("false".equalsIgnoreCase(System.getProperty(PROPERTY))) {
+            return false;
+        }
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return false;
+        }
+        try {
+            // Make sure the species actually initializes on this platform
+            return VectorKernels.laneCount() > 1;
+        } catch (Throwable t) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package dev.chasem.hg.virtualtale.emulator;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.IntConsumer;
+
+/**
+ * Global emulator capacity: caps the number of sessions, the number of GBA
+ * sessions and their total CPU cost ({@link RomType#getCost()}), and queues
+ * players who don't fit.
+ *
+ * A player holds a slot from the moment they are admitted until
+ * {@link #release}. Queued players are admitted strictly in order as slots
+ * free up; an admitted player's slot is reserved until they start (or
+ * release it), so nobody can jump the queue in between.
+ *
+ * Every waiting player has a listener that receives their new queue position
+ * whenever it changes, and 0 once they are admitted. Listeners run on the
+ * thread that freed the capacity, outside this object's lock.
+ */
+public class AdmissionController {
+
+    private final int maxSessions;
+    private final int maxGbaSessions;
+    private final int maxCost;
+
+    // Players holding a slot (running or reserved) and their emulator type
+    private final Map<UUID, RomType> holders = new HashMap<>();
+    private int gbaCount;
+    private int totalCost;
+
+    // Waiting players in arrival order
+    private final LinkedHashMap<UUID, Waiting> queue = new LinkedHashMap<>();
+
+    private record Waiting(RomType romType, IntConsumer listener) {
+    }
+
+    /**
+     * @param maxSessions    most emulator sessions at once; 0 or less for no limit
+     * @param maxGbaSessions most GBA sessions at once; 0 or less for no limit
+     * @param maxCost        largest total {@link RomType#getCost() cost} of running sessions; 0 or less for no limit
+     */
+    public AdmissionController(int maxSessions, int maxGbaSessions, int maxCost) {
+        this.maxSessions = maxSessions;
+        this.maxGbaSessions = maxGbaSessions;
+        this.maxCost = maxCost;
+    }
+
+    /**
+     * Admits a player if there is room and nobody is waiting ahead of them,
+     * otherwise puts them in the queue (or keeps their place if already queued).
+     * A player who already holds a slot is admitted again without using another.
+     *
+     * @param listener receives the player's queue position while waiting, then 0 when admitted
+     * @return 0 if admitted now, otherwise the player's 1-based queue position
+     */
+    public synchronized int acquire(@Nonnull UUID playerId, @Nonnull RomType romType, @Nonnull IntConsumer listener) {
+        if (holders.containsKey(playerId)) {
+            return 0;
+        }
+        if (queue.isEmpty() && fits(romType)) {
+            hold(playerId, romType);
+            return 0;
+        }
+        Waiting previous = queue.get(playerId);
+        if (previous == null || previous.romType != romType) {
+            // A new player, or a different game, goes to the back of the queue
+            queue.remove(playerId);
+        }
+        queue.put(playerId, new Waiting(romType, listener));
+        return getPosition(playerId);
+    }
+
+    /**
+     * Frees the player's slot or takes them out of the queue, then admits
+     * waiting players that now fit.
+     *
+     * @return true if the player held a slot or was waiting
+     */
+    public boolean release(@Nonnull UUID playerId) {
+        List<Runnable> notifications = new ArrayList<>();
+        boolean released;
+        synchronized (this) {
+            RomType romType = holders.remove(playerId);
+            if (romType != null) {
+                totalCost -= romType.getCost();
+                if (romType == RomType.GBA) {
+                    gbaCount--;
+                }
+            }
+            boolean wasWaiting = queue.remove(playerId) != null;
+            released = romType != null || wasWaiting;
+            if (released) {
+                admitWaiting(notifications);
+            }
+        }
+        notifications.forEach(Runnable::run);
+        return released;
+    }
+
+    private void admitWaiting(@Nonnull List<Runnable> notifications) {
+        boolean admitted = false;
+        Iterator<Map.Entry<UUID, Waiting>> it = queue.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<UUID, Waiting> head = it.next();
+            Waiting waiting = head.getValue();
+            if (!fits(waiting.romType)) {
+                break;
+            }
+            it.remove();
+            hold(head.getKey(), waiting.romType);
+            notifications.add(() -> waiting.listener.accept(0));
+            admitted = true;
+        }
+        // Everyone still waiting moved up by one place per admitted player ahead of them
+        int position = 1;
+        for (Waiting waiting : queue.values()) {
+            int current = position++;
+            if (admitted) {
+                notifications.add(() -> waiting.listener.accept(current));
+            }
+        }
+    }
+
+    private boolean fits(@Nonnull RomType romType) {
+        if (maxSessions > 0 && holders.size() >= maxSessions) {
+            return false;
+        }
+        if (maxGbaSessions > 0 && romType == RomType.GBA && gbaCount >= maxGbaSessions) {
+            return false;
+        }
+        // A single session over the whole budget still runs once the server is otherwise idle
+        return maxCost <= 0 || totalCost == 0 || totalCost + romType.getCost() <= maxCost;
+    }
+
+    private void hold(@Nonnull UUID playerId, @Nonnull RomType romType) {
+        holders.put(playerId, romType);
+        totalCost += romType.getCost();
+        if (romType == RomType.GBA) {
+            gbaCount++;
+        }
+    }
+
+    /**
+     * Returns the player's 1-based queue position, or 0 if they aren't waiting.
+     */
+    public synchronized int getPosition(@Nonnull UUID playerId) {
+        int position = 1;
+        for (UUID waiting : queue.keySet()) {
+            if (waiting.equals(playerId)) {
+                return position;
+            }
+            position++;
+        }
+        return 0;
+    }
+
+    public synchronized int getQueueLength() {
+        return queue.size();
+    }
+
+    /** Number of players holding a slot (running or about to start). */
+    public synchronized int getActiveCount() {
+        return holders.size();
+    }
+
+    /** Total cost of the players holding a slot. */
+    public synchronized int getActiveCost() {
+        return totalCost;
+    }
+
+    /**
+     * Forgets all slots and waiting players without notifying anyone.
+     */
+    public synchronized void clear() {
+        holders.clear();
+        queue.clear();
+        gbaCount = 0;
+        totalCost = 0;
+    }
+}
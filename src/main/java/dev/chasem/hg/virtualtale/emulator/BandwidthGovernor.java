@@ -0,0 +1,150 @@
+package dev.chasem.hg.virtualtale.emulator;
+
+import com.hypixel.hytale.protocol.packets.worldmap.MapChunk;
+import com.hypixel.hytale.protocol.packets.worldmap.UpdateWorldMap;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-session outbound bandwidth budget (token bucket).
+ *
+ * The budget covers everything the session sends, summed over all of its
+ * connections: a packet fanned out to the owner and N spectators is charged
+ * N + 1 times. The bucket refills at the configured bytes per second and holds
+ * at most a short burst. Every send is charged against it, and may push it
+ * into debt (a full redraw is much larger than a typical delta). While the
+ * bucket is empty, whole render ticks are skipped instead of read, so the
+ * effective frame rate drops until the debt is paid off; individual chunks are
+ * not deferred (that is what the chunk-per-tick limit is for). Skipped frames
+ * are not lost: the next rendered frame is diffed against the last one
+ * actually sent.
+ *
+ * Packet sizes are estimated from the raw image data, before Hytale's packet
+ * compression, so the cap is conservative. The player's network queue itself
+ * is not observable from here.
+ *
+ * Only the render thread of the owning session uses an instance.
+ */
+public class BandwidthGovernor {
+
+    /** Largest burst allowed after an idle period, in seconds of budget. */
+    private static final double BURST_SECONDS = 0.25;
+
+    /** Approximate fixed cost of an UpdateWorldMap packet (id, length, array headers). */
+    private static final int PACKET_OVERHEAD_BYTES = 16;
+
+    /** Approximate fixed cost of one MapChunk (coordinates, image size and headers). */
+    private static final int CHUNK_OVERHEAD_BYTES = 20;
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final long maxBytesPerSecond;
+    private final double burstBytes;
+
+    private double tokens;
+    private long lastRefillNanos;
+
+    // Measured send rate over the last full second
+    private long windowStartNanos;
+    private long windowBytes;
+    private volatile long lastSecondBytes;
+
+    private volatile long skippedTicks;
+
+    /**
+     * @param maxBytesPerSecond outbound cap; 0 or less disables the governor
+     */
+    public BandwidthGovernor(long maxBytesPerSecond) {
+        this(maxBytesPerSecond, System.nanoTime());
+    }
+
+    BandwidthGovernor(long maxBytesPerSecond, long nowNanos) {
+        this.maxBytesPerSecond = maxBytesPerSecond;
+        this.burstBytes = Math.max(1, maxBytesPerSecond * BURST_SECONDS);
+        this.tokens = burstBytes;
+        this.lastRefillNanos = nowNanos;
+        this.windowStartNanos = nowNanos;
+    }
+
+    /**
+     * Returns whether this render tick may produce a frame. Returns false
+     * (and counts a skipped tick) while the session is over budget.
+     */
+    public boolean tryAcquireTick() {
+        return tryAcquireTick(System.nanoTime());
+    }
+
+    boolean tryAcquireTick(long nowNanos) {
+        rollWindow(nowNanos);
+        if (!isEnabled()) {
+            return true;
+        }
+        long elapsed = nowNanos - lastRefillNanos;
+        lastRefillNanos = nowNanos;
+        tokens = Math.min(burstBytes, tokens + (double) elapsed * maxBytesPerSecond / NANOS_PER_SECOND);
+        if (tokens > 0) {
+            return true;
+        }
+        skippedTicks++;
+        return false;
+    }
+
+    /**
+     * Charges a packet sent to the given number of connections against the budget.
+     */
+    public void recordSent(@Nonnull UpdateWorldMap packet, int recipients) {
+        recordSent(estimateBytes(packet) * recipients);
+    }
+
+    void recordSent(long bytes) {
+        windowBytes += bytes;
+        if (isEnabled()) {
+            tokens -= bytes;
+        }
+    }
+
+    private void rollWindow(long nowNanos) {
+        long elapsed = nowNanos - windowStartNanos;
+        if (elapsed >= NANOS_PER_SECOND) {
+            // An idle gap longer than one window means nothing was sent in the last second
+            lastSecondBytes = elapsed < 2 * NANOS_PER_SECOND ? windowBytes : 0;
+            windowBytes = 0;
+            windowStartNanos = nowNanos;
+        }
+    }
+
+    /**
+     * Estimates the uncompressed wire size of a map update.
+     */
+    public static long estimateBytes(@Nonnull UpdateWorldMap packet) {
+        long bytes = PACKET_OVERHEAD_BYTES;
+        if (packet.chunks != null) {
+            for (MapChunk chunk : packet.chunks) {
+                bytes += CHUNK_OVERHEAD_BYTES;
+                if (chunk.image != null && chunk.image.data != null) {
+                    bytes += (long) chunk.image.data.length * Integer.BYTES;
+                }
+            }
+        }
+        return bytes;
+    }
+
+    public boolean isEnabled() {
+        return maxBytesPerSecond > 0;
+    }
+
+    public long getMaxBytesPerSecond() {
+        return maxBytesPerSecond;
+    }
+
+    /** Bytes sent during the last full second. */
+    public long getBytesLastSecond() {
+        return lastSecondBytes;
+    }
+
+    /** Render ticks skipped because the session was over budget. */
+    public long getSkippedTicks() {
+        return skippedTicks;
+    }
+}
@@ -0,0 +1,176 @@
+package dev.chasem.hg.virtualtale.emulator;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Shared emulation executor for pooled emulation mode.
+ *
+ * By default every backend runs its own emulator thread that emulates a frame
+ * and then sleeps until the next one is due, so N sessions park N platform
+ * threads for most of each frame. With this scheduler each session's loop is
+ * instead a chain of one-frame steps: a step emulates exactly one frame and
+ * hands control back to the pool, which queues the session's next step for its
+ * frame deadline. All sessions then share a bounded pool (one thread per core
+ * by default), and a thread only ever holds a session while it is emulating.
+ *
+ * Deadlines are ordered by the pool's delay queue, so with more sessions than
+ * threads the frame that is due first runs first. A step never runs
+ * concurrently with itself, and each session's deadlines come from its
+ * {@link FrameClock}, as in the dedicated thread loop. Pool threads never spin
+ * for a deadline; they are handed the step when the delay expires.
+ */
+public class EmulationScheduler {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    /** How long {@link Task#cancel()} waits for an in-flight frame to finish. */
+    private static final long CANCEL_WAIT_MS = 2000;
+
+    private final ScheduledThreadPoolExecutor executor;
+
+    /**
+     * @param threads number of emulation threads; values below 1 use one thread per available core
+     */
+    public EmulationScheduler(int threads) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ScheduledThreadPoolExecutor(poolSize, r -> {
+            Thread t = new Thread(r, "VT-Emulation-" + threadIndex.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.executor.setRemoveOnCancelPolicy(true);
+        LOGGER.atInfo().log("[VT] Emulation scheduler started with %d thread(s)", poolSize);
+    }
+
+    /**
+     * Starts running a session's emulation one frame at a time on the shared pool.
+     * If a frame throws, the error is logged and the task stops.
+     *
+     * @param name       debug name used in logs (usually the ROM name)
+     * @param frame      emulates exactly one frame
+     * @param frameNanos current target frame period, read after every frame so speed changes apply at once
+     * @param clock      paces the frames and collects their timing statistics
+     * @return handle used to cancel the task
+     */
+    @Nonnull
+    public Task schedule(@Nonnull String name, @Nonnull Runnable frame, @Nonnull LongSupplier frameNanos,
+                         @Nonnull FrameClock clock) {
+        Task task = new Task(name, frame, frameNanos, clock);
+        long now = System.nanoTime();
+        clock.start(now);
+        task.submit(now, now);
+        return task;
+    }
+
+    /**
+     * Stops the pool. Registered tasks should be cancelled first.
+     */
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(CANCEL_WAIT_MS, TimeUnit.MILLISECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int getPoolSize() {
+        return executor.getCorePoolSize();
+    }
+
+    /**
+     * A session's emulation loop, run one frame per pool execution.
+     */
+    public final class Task {
+
+        private final String name;
+        private final Runnable frame;
+        private final LongSupplier frameNanos;
+        private final FrameClock clock;
+        private final ReentrantLock frameLock = new ReentrantLock();
+
+        private volatile boolean cancelled;
+        private volatile ScheduledFuture<?> future;
+        // Deadline of the submitted step (read by the pool thread that runs it)
+        private volatile long deadlineNanos;
+
+        private Task(@Nonnull String name, @Nonnull Runnable frame, @Nonnull LongSupplier frameNanos,
+                     @Nonnull FrameClock clock) {
+            this.name = name;
+            this.frame = frame;
+            this.frameNanos = frameNanos;
+            this.clock = clock;
+        }
+
+        private void run() {
+            clock.recordStart(deadlineNanos, System.nanoTime());
+            frameLock.lock();
+            try {
+                if (cancelled) {
+                    return;
+                }
+                frame.run();
+            } catch (Throwable t) {
+                cancelled = true;
+                LOGGER.atWarning().log("[VT] Emulation error for %s: %s", name, t.getMessage());
+                return;
+            } finally {
+                frameLock.unlock();
+            }
+
+            // Yield the thread until this session's next frame is due
+            long now = System.nanoTime();
+            submit(clock.nextDeadline(frameNanos.getAsLong(), now), now);
+        }
+
+        private void submit(long deadline, long nowNanos) {
+            if (cancelled) {
+                return;
+            }
+            deadlineNanos = deadline;
+            try {
+                future = executor.schedule(this::run, Math.max(0, deadline - nowNanos), TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e) {
+                // Pool is shutting down
+                cancelled = true;
+            }
+        }
+
+        /**
+         * Stops scheduling frames and waits (briefly) for an in-flight frame to finish,
+         * so the emulator core can be torn down safely after this returns.
+         */
+        public void cancel() {
+            cancelled = true;
+            ScheduledFuture<?> f = future;
+            if (f != null) {
+                f.cancel(false);
+            }
+            try {
+                if (frameLock.tryLock(CANCEL_WAIT_MS, TimeUnit.MILLISECONDS)) {
+                    frameLock.unlock();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /** Whether the task stopped, by {@link #cancel()} or because a frame failed. */
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+}
@@ -5,7 +5,8 @@ import java.io.IOException;
 
 /**
  * Abstraction over different emulator cores (Game Boy, GBA, etc.).
- * Implementations run on their own threads and push frames into a shared {@link FrameBuffer}.
+ * Implementations run on their own threads and expose their latest frame
+ * through {@link #readLatestFrame(FrameReader)}.
  */
 public interface EmulatorBackend {
 
@@ -32,9 +33,74 @@ public interface EmulatorBackend {
     @Nonnull
     String getRomName();
 
-    /** Sets the speed multiplier (1.0 = normal, 2.0 = double speed, etc.). */
+    /**
+     * Speed multiplier that runs the core as fast as it can, with no frame pacing.
+     * The render loop still samples frames at its own steady rate.
+     */
+    double UNTHROTTLED = Double.POSITIVE_INFINITY;
+
+    /**
+     * Sets the speed multiplier (1.0 = normal, 2.0 = double speed, etc., or
+     * {@link #UNTHROTTLED}). Above 1.0, backends only prepare frames for display
+     * at real-time rate, since the render loop can't show the rest anyway.
+     */
     void setSpeedMultiplier(double multiplier);
 
     /** Returns the current speed multiplier. */
     double getSpeedMultiplier();
+
+    /**
+     * Whether this backend can {@link #saveState() save} and {@link #loadState load}
+     * states. Only the Game Boy backend can for now.
+     */
+    default boolean supportsSaveStates() {
+        return false;
+    }
+
+    /**
+     * Captures a compact snapshot of the whole emulator (CPU, memory and video
+     * state), taken between two frames. May be called from any thread.
+     *
+     * @throws UnsupportedOperationException if the backend has no save states
+     * @throws IllegalStateException         if the emulator is not running
+     */
+    @Nonnull
+    default byte[] saveState() throws IOException {
+        throw new UnsupportedOperationException("Save states are not supported by this emulator");
+    }
+
+    /**
+     * Restores a snapshot from {@link #saveState()} of the same ROM; emulation
+     * continues from it with the next frame. May be called from any thread.
+     *
+     * @throws IOException                   if the snapshot is corrupt or for another game
+     * @throws UnsupportedOperationException if the backend has no save states
+     * @throws IllegalStateException         if the emulator is not running
+     */
+    default void loadState(@Nonnull byte[] state) throws IOException {
+        throw new UnsupportedOperationException("Save states are not supported by this emulator");
+    }
+
+    /** Clock pacing the emulation loop, for its timing statistics. */
+    @Nonnull
+    FrameClock getFrameClock();
+
+    /**
+     * Lends the most recent frame to {@code reader} if a new one was produced since
+     * the last call. Called from the render thread once per rendered frame.
+     *
+     * @return true if a new frame was passed to the reader
+     */
+    boolean readLatestFrame(@Nonnull FrameReader reader);
+
+    /**
+     * Tells the backend when the render loop will next call {@link #readLatestFrame}.
+     * Backends that convert every emulated frame for display can then convert
+     * only the frames that will actually be read. Until this is called, every
+     * frame is prepared (push mode). Backends with nothing to skip ignore it.
+     *
+     * @param readAtNanos {@link System#nanoTime()} of the next read
+     */
+    default void requestFrame(long readAtNanos) {
+    }
 }
@@ -1,68 +1,122 @@
 package dev.chasem.hg.virtualtale.emulator;
 
 import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.protocol.CachedPacket;
+import com.hypixel.hytale.protocol.Packet;
 import com.hypixel.hytale.protocol.packets.worldmap.ClearWorldMap;
 import com.hypixel.hytale.protocol.packets.worldmap.UpdateWorldMap;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
-import dev.chasem.hg.virtualtale.display.ColorMapper;
+import dev.chasem.hg.virtualtale.display.DeltaCompressor;
 import dev.chasem.hg.virtualtale.display.MapDisplayRenderer;
+import dev.chasem.hg.virtualtale.display.RenderPool;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 
 /**
- * Per-player session that ties together an emulator backend, a frame buffer,
- * a map renderer, and a scheduled render loop that pushes frames to the player.
+ * Per-player session that ties together an emulator backend,
+ * a map renderer, and a render task (on the shared {@link RenderScheduler})
+ * that pushes frames to the player.
  *
  * Works with any {@link EmulatorBackend} (Game Boy, GBA, etc.).
+ * Below 60 FPS the render task pulls frames: after each tick it tells the
+ * backend when it reads next ({@link EmulatorBackend#requestFrame}), so frames
+ * that would never be shown don't have to be converted.
+ *
+ * Other players can watch a session as spectators. Each frame is rendered once
+ * and the same packet goes to the owner and every spectator. A new spectator
+ * is admitted on the render thread with a keyframe of the whole display, after
+ * which they receive the same deltas as everyone else. Packets going to more
+ * than one connection are serialized once ({@link CachedPacket}), and encoded
+ * keyframes are reused for later joiners until the display changes.
+ *
+ * Some viewers can also be co-op players: they share the owner's emulator and
+ * press buttons through {@link #pressButton}, subject to the session's
+ * {@link InputArbiter}.
  */
 public class EmulatorSession {
 
     private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
 
+    /** Render rate from which the backend pushes every frame instead of being asked for them. */
+    private static final int PUSH_FPS = 60;
+
     private final UUID playerId;
     private final PlayerRef playerRef;
     private final EmulatorBackend backend;
-    private final FrameBuffer frameBuffer;
     private final MapDisplayRenderer renderer;
-    private final ScheduledExecutorService renderScheduler;
+    private final RenderScheduler renderScheduler;
+    private final BandwidthGovernor bandwidthGovernor;
+    private final InputArbiter inputArbiter;
+
+    // Packet object pool, null unless pooled rendering is enabled
+    @Nullable
+    private final RenderPool renderPool;
+
+    private RenderScheduler.Task renderTask;
+    // Render period when frames are pulled from the backend; 0 when it pushes every frame
+    private long pullPeriodNanos;
+
+    // Everyone the stream is sent to: the owner first, then spectators
+    private final CopyOnWriteArrayList<PlayerRef> viewers = new CopyOnWriteArrayList<>();
 
-    private ScheduledFuture<?> renderTask;
-    private long lastFrameCount = -1;
+    // Spectators waiting for their keyframe (added by commands, drained by the render thread)
+    private final ConcurrentLinkedQueue<PlayerRef> joiningSpectators = new ConcurrentLinkedQueue<>();
 
-    // Reusable frame buffers (avoid allocation per frame)
-    private final int[] readBuffer;
-    private final int[] rgbaBuffer;
+    // Held while spectators move from joiningSpectators to viewers and while they are
+    // removed, so a removal can't land between the two and be undone by the admission
+    private final Object membershipLock = new Object();
+
+    // Encoded keyframe parts for joining spectators (render thread only). The static
+    // chunks never change; the display keyframe is reused until the frame changes.
+    @Nullable
+    private CachedPacket<UpdateWorldMap> encodedStaticChunks;
+    @Nullable
+    private CachedPacket<UpdateWorldMap> encodedKeyframe;
+    private long encodedKeyframeVersion;
+    // Estimated sizes of the encoded parts, charged per spectator they are sent to
+    private long encodedStaticBytes;
+    private long encodedKeyframeBytes;
+
+    private final FrameReader frameReader = this::copyFrame;
+
+    // Copy of the last frame read, rendered after the backend is released (render thread only)
+    private final int[] framePixels;
 
     public EmulatorSession(
             @Nonnull UUID playerId,
             @Nonnull PlayerRef playerRef,
             @Nonnull EmulatorBackend backend,
-            @Nonnull FrameBuffer frameBuffer,
+            @Nonnull RenderScheduler renderScheduler,
             double playerWorldX,
             double playerWorldZ,
-            int mapScale
+            int mapScale,
+            @Nonnull DeltaCompressor.Mode deltaMode,
+            long maxBytesPerSecond,
+            int maxChunksPerTick,
+            boolean pooledRendering,
+            @Nonnull InputArbiter.Mode inputMode
     ) {
         this.playerId = playerId;
         this.playerRef = playerRef;
         this.backend = backend;
-        this.frameBuffer = frameBuffer;
+        this.framePixels = new int[backend.getDisplayWidth() * backend.getDisplayHeight()];
         this.renderer = new MapDisplayRenderer(playerWorldX, playerWorldZ, mapScale,
-                backend.getDisplayWidth(), backend.getDisplayHeight());
-        this.renderScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
-            Thread t = new Thread(r, "VT-Render-" + playerId.toString().substring(0, 8));
-            t.setDaemon(true);
-            return t;
-        });
-
-        int pixelCount = frameBuffer.getPixelCount();
-        this.readBuffer = new int[pixelCount];
-        this.rgbaBuffer = new int[pixelCount];
+                backend.getDisplayWidth(), backend.getDisplayHeight(), deltaMode);
+        this.renderer.setMaxChunksPerTick(maxChunksPerTick);
+        this.renderPool = pooledRendering ? new RenderPool() : null;
+        this.renderer.setRenderPool(renderPool);
+        this.renderScheduler = renderScheduler;
+        this.bandwidthGovernor = new BandwidthGovernor(maxBytesPerSecond);
+        this.inputArbiter = new InputArbiter(playerId, inputMode);
+        this.viewers.add(playerRef);
     }
 
     /**
@@ -79,77 +133,260 @@ public class EmulatorSession {
 
         backend.start();
 
-        long periodMs = 1000L / renderFps;
-        renderTask = renderScheduler.scheduleAtFixedRate(
-                this::renderTick,
-                periodMs,
-                periodMs,
-                TimeUnit.MILLISECONDS
-        );
+        // Below the emulator's own frame rate, ask only for the frames we will read
+        pullPeriodNanos = renderFps < PUSH_FPS ? TimeUnit.SECONDS.toNanos(1) / Math.max(1, renderFps) : 0;
+        renderTask = renderScheduler.schedule(playerId.toString(), this::renderTick, renderFps);
 
         LOGGER.atInfo().log("[VT] Session started for %s - ROM: %s, %d FPS",
                 playerId, backend.getRomName(), renderFps);
     }
 
     /**
-     * Stops the emulator and render loop. Blocks until the render scheduler
-     * has fully terminated so no stale frames are sent after this returns.
+     * Stops the emulator and render loop. Blocks until any in-flight render
+     * tick has finished so no stale frames are sent after this returns.
      */
     public void stop() {
         if (renderTask != null) {
-            renderTask.cancel(false);
-        }
-        renderScheduler.shutdown();
-        try {
-            // Wait for any in-flight render tick to finish before clearing the map
-            if (!renderScheduler.awaitTermination(500, TimeUnit.MILLISECONDS)) {
-                renderScheduler.shutdownNow();
-            }
-        } catch (InterruptedException e) {
-            renderScheduler.shutdownNow();
-            Thread.currentThread().interrupt();
+            // Waits for any in-flight render tick to finish before clearing the map
+            renderTask.cancel();
         }
         backend.stop();
 
-        LOGGER.atInfo().log("[VT] Session stopped for %s", playerId);
+        // The render task is gone, so nothing can send the cached keyframe parts anymore
+        releaseEncodedKeyframe();
+        if (encodedStaticChunks != null) {
+            encodedStaticChunks.close();
+            encodedStaticChunks = null;
+        }
+
+        FrameClock.Stats pacing = backend.getFrameClock().getStats();
+        LOGGER.atInfo().log("[VT] Session stopped for %s - %d frames at %.2f FPS, avg late %d us, max late %d us, %d dropped",
+                playerId, pacing.frames(), pacing.fps(), pacing.avgLateNanos() / 1000, pacing.maxLateNanos() / 1000,
+                pacing.droppedFrames());
     }
 
     /**
-     * Called by the render scheduler. Reads the latest frame from the buffer,
-     * converts colors, renders to map chunks, and sends to the player.
+     * Called by the shared render scheduler. Reads the latest frame from the backend,
+     * renders it to map chunks, and sends it to the owner and all spectators.
      */
     private void renderTick() {
+        long tickStart = System.nanoTime();
         try {
-            // Check for new frame
-            long newCount = frameBuffer.getLatestFrame(readBuffer, lastFrameCount);
-            if (newCount == -1) {
-                return; // No new frame
+            // Keep a copy of each frame for keyframes only while someone may need one
+            boolean keyframes = viewers.size() > 1 || !joiningSpectators.isEmpty();
+            renderer.setKeyframesEnabled(keyframes);
+            if (!keyframes) {
+                releaseEncodedKeyframe();
             }
-            lastFrameCount = newCount;
 
-            // Convert RGB -> RGBA
-            ColorMapper.toRgba(readBuffer, rgbaBuffer, frameBuffer.getPixelCount());
+            // Over the bandwidth budget: skip this frame, lowering the effective FPS.
+            // The read only copies the pixels; rendering and sending happen after it,
+            // so the backend is never held up by either.
+            if (bandwidthGovernor.tryAcquireTick() && backend.readLatestFrame(frameReader)) {
+                // Fused RGB -> RGBA conversion and chunk extraction (delta compressed)
+                UpdateWorldMap packet = renderer.renderRgbFrame(framePixels);
+                if (packet != null) {
+                    bandwidthGovernor.recordSent(packet, viewers.size());
+                    broadcastFrame(packet);
+                }
+            }
+            if (pullPeriodNanos > 0) {
+                backend.requestFrame(tickStart + pullPeriodNanos);
+            }
 
-            // Render to map chunks (delta compressed)
-            UpdateWorldMap packet = renderer.renderFrame(rgbaBuffer);
-            if (packet != null) {
-                MapDisplayRenderer.sendToPlayer(playerRef, packet);
+            if (!joiningSpectators.isEmpty() && renderer.hasKeyframe()) {
+                admitSpectators();
             }
         } catch (Exception e) {
             LOGGER.atWarning().log("[VT] Render error for %s: %s", playerId, e.getMessage());
         }
     }
 
+    /**
+     * Sends every waiting spectator a cleared map and a keyframe of the current
+     * display, then adds them to the stream. Keyframes are charged to the
+     * session's bandwidth budget once per joining spectator.
+     */
+    private void admitSpectators() {
+        // Encode first, so removals never wait on rendering
+        if (encodedStaticChunks == null) {
+            UpdateWorldMap staticChunks = renderer.renderStaticChunks();
+            encodedStaticBytes = BandwidthGovernor.estimateBytes(staticChunks);
+            encodedStaticChunks = encode(staticChunks);
+        }
+        if (encodedKeyframe == null || encodedKeyframeVersion != renderer.getKeyframeVersion()) {
+            releaseEncodedKeyframe();
+            UpdateWorldMap keyframe = renderer.renderKeyframe();
+            encodedKeyframeBytes = keyframe != null ? BandwidthGovernor.estimateBytes(keyframe) : 0;
+            encodedKeyframe = keyframe != null ? encode(keyframe) : null;
+            encodedKeyframeVersion = renderer.getKeyframeVersion();
+        }
+
+        List<PlayerRef> joining = new ArrayList<>();
+        synchronized (membershipLock) {
+            PlayerRef spectator;
+            while ((spectator = joiningSpectators.poll()) != null) {
+                joining.add(spectator);
+            }
+            if (joining.isEmpty()) {
+                return;
+            }
+            // Sent under the lock too: once a removal returns, no keyframe can follow
+            broadcast(new ClearWorldMap(), joining);
+            broadcast(encodedStaticChunks, joining);
+            if (encodedKeyframe != null) {
+                broadcast(encodedKeyframe, joining);
+            }
+            viewers.addAll(joining);
+        }
+        bandwidthGovernor.recordSent((encodedStaticBytes + encodedKeyframeBytes) * joining.size());
+        LOGGER.atInfo().log("[VT] %d spectator(s) joined session of %s", joining.size(), playerId);
+    }
+
+    /**
+     * Sends a rendered frame to every viewer, serializing it once if more than
+     * one connection (or the pool) needs the encoded form.
+     */
+    private void broadcastFrame(@Nonnull UpdateWorldMap packet) {
+        List<PlayerRef> recipients = viewers;
+        if (renderPool == null && recipients.size() == 1) {
+            // A single connection encodes it exactly once anyway
+            broadcast(packet, recipients);
+        } else {
+            // Writes keep their own reference to the bytes, so ours can go once fanned out
+            try (CachedPacket<UpdateWorldMap> encoded = encode(packet)) {
+                broadcast(encoded, recipients);
+            }
+        }
+    }
+
+    /**
+     * Frees the cached display keyframe, if any. Render thread only, or after
+     * the render task has been cancelled.
+     */
+    private void releaseEncodedKeyframe() {
+        if (encodedKeyframe != null) {
+            encodedKeyframe.close();
+            encodedKeyframe = null;
+        }
+    }
+
+    /**
+     * Serializes a map update. In pooled mode its arrays go straight back to
+     * the pool, so the update must not be used afterwards.
+     */
+    @Nonnull
+    private CachedPacket<UpdateWorldMap> encode(@Nonnull UpdateWorldMap packet) {
+        CachedPacket<UpdateWorldMap> encoded = CachedPacket.cache(packet);
+        if (renderPool != null) {
+            renderPool.release(packet);
+        }
+        return encoded;
+    }
+
+    /**
+     * Writes a packet to every recipient.
+     */
+    private void broadcast(@Nonnull Packet packet, @Nonnull List<PlayerRef> recipients) {
+        for (PlayerRef recipient : recipients) {
+            try {
+                recipient.getPacketHandler().write(packet);
+            } catch (Exception e) {
+                // One broken connection must not stall the stream for everyone else
+                LOGGER.atWarning().log("[VT] Failed to send frame to %s: %s", recipient.getUuid(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Adds a spectator. They start receiving the display on the next render tick.
+     */
+    public void addSpectator(@Nonnull PlayerRef spectator) {
+        joiningSpectators.add(spectator);
+    }
+
+    /**
+     * Adds a co-op player: a spectator whose button presses may reach the
+     * emulator, depending on the {@link InputArbiter} mode.
+     */
+    public void addPlayer(@Nonnull PlayerRef player) {
+        inputArbiter.addPlayer(player.getUuid());
+        addSpectator(player);
+    }
+
+    /**
+     * Presses a button on behalf of a player, if the input arbitration lets them.
+     *
+     * @return true if the press reached the emulator
+     */
+    public boolean pressButton(@Nonnull UUID playerId, @Nonnull EmulatorButton button) {
+        if (!inputArbiter.canControl(playerId)) {
+            return false;
+        }
+        backend.pressButton(button);
+        return true;
+    }
+
+    /**
+     * Removes a spectator or co-op player (joined or still waiting). The owner can't be removed.
+     *
+     * @return true if the player was spectating this session
+     */
+    public boolean removeSpectator(@Nonnull UUID spectatorId) {
+        inputArbiter.removePlayer(spectatorId);
+        synchronized (membershipLock) {
+            boolean removed = joiningSpectators.removeIf(p -> spectatorId.equals(p.getUuid()));
+            removed |= viewers.removeIf(p -> p != playerRef && spectatorId.equals(p.getUuid()));
+            return removed;
+        }
+    }
+
+    /**
+     * Returns the session's spectators, including ones still waiting for their keyframe.
+     */
+    @Nonnull
+    public List<PlayerRef> getSpectators() {
+        List<PlayerRef> spectators = new ArrayList<>();
+        synchronized (membershipLock) {
+            for (PlayerRef viewer : viewers) {
+                if (viewer != playerRef) {
+                    spectators.add(viewer);
+                }
+            }
+            spectators.addAll(joiningSpectators);
+        }
+        return spectators;
+    }
+
+    private void copyFrame(@Nonnull int[] rgbPixels) {
+        System.arraycopy(rgbPixels, 0, framePixels, 0, framePixels.length);
+    }
+
     @Nonnull
     public EmulatorBackend getBackend() {
         return backend;
     }
 
+    @Nonnull
+    public BandwidthGovernor getBandwidthGovernor() {
+        return bandwidthGovernor;
+    }
+
+    @Nonnull
+    public InputArbiter getInputArbiter() {
+        return inputArbiter;
+    }
+
     @Nonnull
     public UUID getPlayerId() {
         return playerId;
     }
 
+    @Nonnull
+    public PlayerRef getPlayerRef() {
+        return playerRef;
+    }
+
     @Nonnull
     public String getRomName() {
         return backend.getRomName();
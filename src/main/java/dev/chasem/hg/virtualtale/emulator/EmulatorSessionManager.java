@@ -1,6 +1,7 @@
 package dev.chasem.hg.virtualtale.emulator;
 
 import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.Message;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
 import dev.chasem.hg.virtualtale.VirtualTaleConfig;
 
@@ -10,44 +11,81 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
 
 /**
  * Manages all active emulator sessions. Each player can have at most one session.
  * Automatically selects the correct backend (Game Boy or GBA) based on ROM type.
+ *
+ * A player without a session of their own can watch another player's session
+ * as a spectator, or join it as a co-op player: one emulator and one render
+ * pipeline then serve the whole group.
+ *
+ * New sessions go through an {@link AdmissionController}: when the configured
+ * session, GBA or CPU cost limits are reached, players wait in a queue and are
+ * started as capacity frees up.
  */
 public class EmulatorSessionManager {
 
     private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
 
     private final ConcurrentHashMap<UUID, EmulatorSession> sessions = new ConcurrentHashMap<>();
+
+    // Spectator or co-op player -> owner of the session they watch. Kept after that
+    // session ends, so the player's map can still be restored with unwatch.
+    private final ConcurrentHashMap<UUID, UUID> watching = new ConcurrentHashMap<>();
     private final VirtualTaleConfig config;
+    private final RenderScheduler renderScheduler;
+    // Shared emulation pool, or null when every backend runs its own thread
+    @Nullable
+    private final EmulationScheduler emulationScheduler;
+    private final AdmissionController admission;
 
     public EmulatorSessionManager(@Nonnull VirtualTaleConfig config) {
         this.config = config;
+        this.renderScheduler = new RenderScheduler(config.getRenderThreads());
+        this.emulationScheduler = config.isPooledEmulation()
+                ? new EmulationScheduler(config.getEmulationThreads())
+                : null;
+        this.admission = new AdmissionController(config.getMaxSessions(), config.getMaxGbaSessions(),
+                config.getMaxEmulationCost());
     }
 
     /**
-     * Starts a new emulator session for a player.
-     * The backend is automatically selected based on the ROM file extension.
+     * Starts a new emulator session for a player, or queues them if the server
+     * is at capacity. The backend is automatically selected based on the ROM
+     * file extension.
      *
-     * @param playerId  the player's UUID
-     * @param playerRef the player's reference for sending packets
-     * @param romName   the ROM filename (without path)
-     * @return the created session
+     * A queued player's listener receives their new position whenever the
+     * queue moves, and 0 once a slot has been reserved for them; the caller
+     * should then call this method again to start the session. The listener
+     * runs on whichever thread freed the capacity.
+     *
+     * @param playerId      the player's UUID
+     * @param playerRef     the player's reference for sending packets
+     * @param romName       the ROM filename (without path)
+     * @param onQueueUpdate receives queue positions while the player waits, then 0 when admitted
+     * @return the created session, or null if the player was queued (see {@link #getQueuePosition})
      * @throws IOException           if the ROM cannot be loaded
      * @throws IllegalStateException if the player already has a session
      */
-    @Nonnull
-    public EmulatorSession startSession(
+    @Nullable
+    public EmulatorSession requestSession(
             @Nonnull UUID playerId,
             @Nonnull PlayerRef playerRef,
-            @Nonnull String romName
+            @Nonnull String romName,
+            @Nonnull IntConsumer onQueueUpdate
     ) throws IOException {
         if (sessions.containsKey(playerId)) {
             throw new IllegalStateException("Player already has an active session");
         }
+        if (watching.containsKey(playerId)) {
+            throw new IllegalStateException("Player is watching another session");
+        }
 
         File romFile = resolveRom(romName);
         if (romFile == null || !romFile.exists()) {
@@ -60,17 +98,44 @@ public class EmulatorSessionManager {
                     + ". Supported: .gb, .gbc, .gba, .agb");
         }
 
-        // Create the appropriately-sized frame buffer
-        FrameBuffer frameBuffer = new FrameBuffer(romType.getWidth(), romType.getHeight());
+        if (admission.acquire(playerId, romType, onQueueUpdate) > 0) {
+            LOGGER.atInfo().log("[VT] At capacity, %s queued at position %d", playerId, admission.getPosition(playerId));
+            return null;
+        }
+        try {
+            return createSession(playerId, playerRef, romName, romFile, romType);
+        } catch (IOException | RuntimeException e) {
+            admission.release(playerId);
+            throw e;
+        }
+    }
 
+    @Nonnull
+    private FrameClock createFrameClock() {
+        return new FrameClock(TimeUnit.MICROSECONDS.toNanos(config.getPacingSpinMicros()), config.getMaxCatchUpFrames());
+    }
+
+    @Nonnull
+    private EmulatorSession createSession(
+            @Nonnull UUID playerId,
+            @Nonnull PlayerRef playerRef,
+            @Nonnull String romName,
+            @Nonnull File romFile,
+            @Nonnull RomType romType
+    ) throws IOException {
         // Create the appropriate backend
         EmulatorBackend backend;
         File saveDir = resolveSaveDir(romFile, playerId);
+        // Both cores publish finished frames through a triple buffer
+        FrameBuffer frameBuffer = new FrameBuffer(romType.getWidth(), romType.getHeight());
         switch (romType) {
-            case GAMEBOY -> backend = new HeadlessGameboy(romFile, new File(saveDir, getFileBaseName(romFile.getName()) + ".sav"), frameBuffer);
+            case GAMEBOY -> {
+                backend = new HeadlessGameboy(romFile, new File(saveDir, getFileBaseName(romFile.getName()) + ".sav"), frameBuffer,
+                        emulationScheduler, createFrameClock());
+            }
             case GBA -> {
                 File biosFile = config.getGbaBiosFile();
-                backend = new HeadlessGba(romFile, biosFile, saveDir, frameBuffer);
+                backend = new HeadlessGba(romFile, biosFile, saveDir, frameBuffer, emulationScheduler, createFrameClock());
             }
             default -> throw new IOException("Unsupported ROM type: " + romType);
         }
@@ -79,10 +144,15 @@ public class EmulatorSessionManager {
                 playerId,
                 playerRef,
                 backend,
-                frameBuffer,
+                renderScheduler,
                 config.getAnchorX(),
                 config.getAnchorZ(),
-                config.getMapScale()
+                config.getMapScale(),
+                config.getDeltaMode(),
+                config.getMaxBytesPerSecond(),
+                config.getMaxChunksPerTick(),
+                config.isPooledRendering(),
+                config.getInputMode()
         );
 
         session.start(config.getRenderFps());
@@ -92,14 +162,246 @@ public class EmulatorSessionManager {
     }
 
     /**
-     * Stops and removes the session for a player.
+     * Stops and removes the session for a player, or takes them out of the
+     * start queue. The freed capacity goes to the next queued players.
      */
     public void stopSession(@Nonnull UUID playerId) {
         EmulatorSession session = sessions.remove(playerId);
         if (session != null) {
-            session.stop();
+            endSession(session);
+            admission.release(playerId);
             LOGGER.atInfo().log("[VT] Stopped session for %s", playerId);
+        } else {
+            admission.release(playerId);
+        }
+    }
+
+    /**
+     * Restarts a player's session with the current configuration (e.g. after a
+     * map scale change). The player keeps their emulator slot throughout, so a
+     * restart never sends them to the back of the start queue.
+     *
+     * @return the new session
+     * @throws IOException           if the ROM can no longer be loaded; the slot is then released
+     * @throws IllegalStateException if the player has no session
+     */
+    @Nonnull
+    public EmulatorSession restartSession(@Nonnull UUID playerId, @Nonnull PlayerRef playerRef) throws IOException {
+        EmulatorSession session = sessions.remove(playerId);
+        if (session == null) {
+            throw new IllegalStateException("Player has no active session");
+        }
+        endSession(session);
+
+        String romName = session.getRomName();
+        try {
+            File romFile = resolveRom(romName);
+            RomType romType = romFile != null ? RomType.detect(romFile) : null;
+            if (romType == null) {
+                throw new IOException("ROM not found: " + romName);
+            }
+            return createSession(playerId, playerRef, romName, romFile, romType);
+        } catch (IOException | RuntimeException e) {
+            admission.release(playerId);
+            throw e;
+        }
+    }
+
+    private void endSession(@Nonnull EmulatorSession session) {
+        session.stop();
+        for (PlayerRef spectator : session.getSpectators()) {
+            spectator.sendMessage(Message.raw("The session you were watching has ended. Use /vt unwatch to restore your map."));
+        }
+    }
+
+    /**
+     * Snapshots the player's game to {@code saves/<game>/<player-uuid>/<game>.state},
+     * replacing any earlier state of that game.
+     *
+     * @return the written state file
+     * @throws IllegalStateException         if the player has no session
+     * @throws UnsupportedOperationException if the emulator has no save states
+     */
+    @Nonnull
+    public File saveState(@Nonnull UUID playerId) throws IOException {
+        EmulatorSession session = requireSession(playerId);
+        byte[] state = session.getBackend().saveState();
+
+        Path stateFile = resolveStateFile(session.getRomName(), playerId);
+        // Write next to the old state first, so a failed write never destroys it
+        Path tempFile = stateFile.resolveSibling(stateFile.getFileName() + ".tmp");
+        Files.write(tempFile, state);
+        Files.move(tempFile, stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        LOGGER.atInfo().log("[VT] Saved state for %s (%d bytes) to %s", playerId, state.length, stateFile);
+        return stateFile.toFile();
+    }
+
+    /**
+     * Restores the player's game from its {@link #saveState saved state}.
+     *
+     * @throws IOException                   if there is no saved state or it can't be loaded
+     * @throws IllegalStateException         if the player has no session
+     * @throws UnsupportedOperationException if the emulator has no save states
+     */
+    public void loadState(@Nonnull UUID playerId) throws IOException {
+        EmulatorSession session = requireSession(playerId);
+        if (!session.getBackend().supportsSaveStates()) {
+            throw new UnsupportedOperationException("Save states are not supported by this emulator");
+        }
+        Path stateFile = resolveStateFile(session.getRomName(), playerId);
+        if (!Files.exists(stateFile)) {
+            throw new IOException("No saved state for " + session.getRomName());
+        }
+        session.getBackend().loadState(Files.readAllBytes(stateFile));
+    }
+
+    @Nonnull
+    private EmulatorSession requireSession(@Nonnull UUID playerId) {
+        EmulatorSession session = sessions.get(playerId);
+        if (session == null) {
+            throw new IllegalStateException("Player has no active session");
+        }
+        return session;
+    }
+
+    @Nonnull
+    private Path resolveStateFile(@Nonnull String romName, @Nonnull UUID playerId) throws IOException {
+        File saveDir = resolveSaveDir(new File(romName), playerId);
+        return saveDir.toPath().resolve(getFileBaseName(romName) + ".state");
+    }
+
+    /**
+     * Returns the player's 1-based position in the start queue, or 0 if they aren't waiting.
+     */
+    public int getQueuePosition(@Nonnull UUID playerId) {
+        return admission.getPosition(playerId);
+    }
+
+    /** Number of players waiting for a session. */
+    public int getQueueLength() {
+        return admission.getQueueLength();
+    }
+
+    /**
+     * Subscribes a player to another player's session as a spectator.
+     *
+     * @param spectatorId  the watching player's UUID
+     * @param spectatorRef the watching player's reference for sending packets
+     * @param ownerName    username of the session owner (case-insensitive)
+     * @return the watched session
+     * @throws IllegalArgumentException if no session is owned by that player
+     * @throws IllegalStateException    if the spectator has a session of their own, is queued for one or is already watching
+     */
+    @Nonnull
+    public EmulatorSession watchSession(
+            @Nonnull UUID spectatorId,
+            @Nonnull PlayerRef spectatorRef,
+            @Nonnull String ownerName
+    ) {
+        return subscribe(spectatorId, spectatorRef, ownerName, false);
+    }
+
+    /**
+     * Joins another player's session as a co-op player. Like
+     * {@link #watchSession}, but the player's button presses are passed to the
+     * session's {@link InputArbiter}.
+     *
+     * @return the joined session
+     * @throws IllegalArgumentException if no session is owned by that player
+     * @throws IllegalStateException    if the player has a session of their own, is queued for one or is already watching
+     */
+    @Nonnull
+    public EmulatorSession joinSession(
+            @Nonnull UUID playerId,
+            @Nonnull PlayerRef playerRef,
+            @Nonnull String ownerName
+    ) {
+        return subscribe(playerId, playerRef, ownerName, true);
+    }
+
+    @Nonnull
+    private EmulatorSession subscribe(
+            @Nonnull UUID spectatorId,
+            @Nonnull PlayerRef spectatorRef,
+            @Nonnull String ownerName,
+            boolean coopPlayer
+    ) {
+        if (sessions.containsKey(spectatorId)) {
+            throw new IllegalStateException("Player already has an active session");
+        }
+        if (admission.getPosition(spectatorId) > 0) {
+            // Their reserved slot would start a game they can no longer be shown
+            throw new IllegalStateException("Player is waiting in the start queue");
+        }
+        EmulatorSession session = findSessionByOwnerName(ownerName);
+        if (session == null) {
+            throw new IllegalArgumentException("No active session for player: " + ownerName);
+        }
+        if (session.getPlayerId().equals(spectatorId)) {
+            throw new IllegalArgumentException("Cannot watch your own session");
+        }
+        if (watching.putIfAbsent(spectatorId, session.getPlayerId()) != null) {
+            throw new IllegalStateException("Player is already watching a session");
         }
+        if (coopPlayer) {
+            session.addPlayer(spectatorRef);
+        } else {
+            session.addSpectator(spectatorRef);
+        }
+        LOGGER.atInfo().log("[VT] %s %s the session of %s", spectatorId,
+                coopPlayer ? "joined" : "is watching", session.getPlayerId());
+        return session;
+    }
+
+    /**
+     * Stops a player from watching a session.
+     *
+     * @return true if the player was watching a session (even one that has since ended)
+     */
+    public boolean unwatch(@Nonnull UUID spectatorId) {
+        UUID ownerId = watching.remove(spectatorId);
+        if (ownerId == null) {
+            return false;
+        }
+        EmulatorSession session = sessions.get(ownerId);
+        if (session != null) {
+            session.removeSpectator(spectatorId);
+        }
+        LOGGER.atInfo().log("[VT] %s stopped watching the session of %s", spectatorId, ownerId);
+        return true;
+    }
+
+    /**
+     * Gets the owner of the session a player is watching, or null if they aren't watching one.
+     */
+    @Nullable
+    public UUID getWatchedOwner(@Nonnull UUID spectatorId) {
+        return watching.get(spectatorId);
+    }
+
+    /**
+     * Gets the session a player's button presses go to: their own, or the one
+     * they joined as a co-op player. Null for spectators and players without one.
+     */
+    @Nullable
+    public EmulatorSession getInputSession(@Nonnull UUID playerId) {
+        EmulatorSession own = sessions.get(playerId);
+        if (own != null) {
+            return own;
+        }
+        UUID ownerId = watching.get(playerId);
+        EmulatorSession joined = ownerId != null ? sessions.get(ownerId) : null;
+        return joined != null && joined.getInputArbiter().isPlayer(playerId) ? joined : null;
+    }
+
+    @Nullable
+    private EmulatorSession findSessionByOwnerName(@Nonnull String ownerName) {
+        for (EmulatorSession session : sessions.values()) {
+            if (ownerName.equalsIgnoreCase(session.getPlayerRef().getUsername())) {
+                return session;
+            }
+        }
+        return null;
     }
 
     /**
@@ -119,13 +421,19 @@ public class EmulatorSessionManager {
     }
 
     /**
-     * Stops all sessions. Called during plugin shutdown.
+     * Stops all sessions and the shared render pool. Called during plugin shutdown.
      */
     public void shutdownAll() {
         for (Map.Entry<UUID, EmulatorSession> entry : sessions.entrySet()) {
             entry.getValue().stop();
         }
         sessions.clear();
+        watching.clear();
+        admission.clear();
+        renderScheduler.shutdown();
+        if (emulationScheduler != null) {
+            emulationScheduler.shutdown();
+        }
         LOGGER.atInfo().log("[VT] All sessions shut down");
     }
 
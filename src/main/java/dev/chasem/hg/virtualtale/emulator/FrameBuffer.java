@@ -2,14 +2,32 @@ package dev.chasem.hg.virtualtale.emulator;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * Thread-safe double buffer for transferring frame data from the emulator thread
+ * Lock-free triple buffer for transferring frame data from the emulator thread
  * to the render thread. The emulator thread writes frames, and the render thread
  * reads the latest available frame.
  *
+ * Three pixel arrays rotate between the roles of back buffer (owned by the
+ * producer), front buffer (owned by the consumer) and a published middle buffer.
+ * Publishing and acquiring are a single atomic index swap, so neither side ever
+ * blocks on the other and no frame data is copied on the hot path:
+ * <pre>
+ *   int[] back = frameBuffer.getBackBuffer();   // emulator thread
+ *   ... write pixels into back ...
+ *   frameBuffer.publishBackBuffer();
+ *
+ *   int[] frame = frameBuffer.acquireLatestFrame(); // render thread, null if nothing new
+ * </pre>
+ * Exactly one producer thread and one consumer thread may use the buffer at a time.
+ *
+ * By default every frame is published (push mode). A consumer that reads less
+ * often than frames are produced can switch to pull mode with
+ * {@link #requestFrame}: the producer then checks {@link #isFrameWanted} and
+ * skips filling frames that would be overwritten before the next read.
+ *
  * Supports configurable resolution for different emulator backends
  * (GB = 160x144, GBA = 240x160).
  */
@@ -18,19 +36,37 @@ public class FrameBuffer {
     public static final int GB_WIDTH = 160;
     public static final int GB_HEIGHT = 144;
 
+    /** Set on the shared middle index when it holds a frame the consumer hasn't seen. */
+    private static final int FRESH = 0b100;
+    private static final int INDEX_MASK = 0b011;
+
     private final int width;
     private final int height;
     private final int pixelCount;
 
-    private final ReentrantLock lock = new ReentrantLock();
-    private final int[] buffer;
+    private final int[][] buffers = new int[3][];
+    private final long[] frameNumbers = new long[3];
+    private final AtomicInteger middle = new AtomicInteger(2);
     private final AtomicLong frameCount = new AtomicLong(0);
 
+    // Completion time from which frames are wanted again; PUSH until the first request
+    private static final long PUSH = Long.MIN_VALUE;
+    // Reads are timer driven and may fire a little before the time they were requested for
+    private static final long READ_SLACK_NANOS = 2_000_000L;
+    private volatile long wantedAfterNanos = PUSH;
+
+    // Producer-owned
+    private int backIndex = 0;
+    // Consumer-owned
+    private int frontIndex = 1;
+
     public FrameBuffer(int width, int height) {
         this.width = width;
         this.height = height;
         this.pixelCount = width * height;
-        this.buffer = new int[pixelCount];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = new int[pixelCount];
+        }
     }
 
     /** Creates a Game Boy-sized frame buffer (160x144). */
@@ -39,19 +75,60 @@ public class FrameBuffer {
     }
 
     /**
-     * Submits a new frame from the emulator thread.
-     * Copies the pixel data into the internal buffer under lock.
+     * Returns the producer's back buffer. The emulator thread renders the next
+     * frame directly into this array, then calls {@link #publishBackBuffer()}.
+     * The returned array changes after every publish.
+     */
+    @Nonnull
+    public int[] getBackBuffer() {
+        return buffers[backIndex];
+    }
+
+    /**
+     * Publishes the back buffer as the latest frame and hands the producer a
+     * new back buffer. If the consumer hasn't picked up the previous frame yet,
+     * that frame is simply overwritten on the next publish.
+     */
+    public void publishBackBuffer() {
+        frameNumbers[backIndex] = frameCount.get() + 1;
+        int previous = middle.getAndSet(backIndex | FRESH);
+        backIndex = previous & INDEX_MASK;
+        frameCount.incrementAndGet();
+    }
+
+    /**
+     * Submits a new frame from the emulator thread by copying it into the back
+     * buffer and publishing it. Prefer writing into {@link #getBackBuffer()}
+     * directly when the source can render in place.
      *
      * @param pixels pixel data array (must be at least pixelCount ints)
      */
     public void submitFrame(@Nonnull int[] pixels) {
-        lock.lock();
-        try {
-            System.arraycopy(pixels, 0, buffer, 0, Math.min(pixels.length, pixelCount));
-            frameCount.incrementAndGet();
-        } finally {
-            lock.unlock();
+        System.arraycopy(pixels, 0, buffers[backIndex], 0, Math.min(pixels.length, pixelCount));
+        publishBackBuffer();
+    }
+
+    /**
+     * Acquires the most recently published frame without copying.
+     * The returned array belongs to the consumer until its next acquire call.
+     *
+     * @return the latest frame, or null if nothing was published since the last acquire
+     */
+    @Nullable
+    public int[] acquireLatestFrame() {
+        if ((middle.get() & FRESH) == 0) {
+            return null;
         }
+        int previous = middle.getAndSet(frontIndex);
+        frontIndex = previous & INDEX_MASK;
+        return buffers[frontIndex];
+    }
+
+    /**
+     * Returns the frame number of the buffer last returned by {@link #acquireLatestFrame()}.
+     */
+    public long getAcquiredFrameNumber() {
+        return frameNumbers[frontIndex];
     }
 
     /**
@@ -68,13 +145,32 @@ public class FrameBuffer {
             return -1;
         }
 
-        lock.lock();
-        try {
-            System.arraycopy(buffer, 0, dest, 0, pixelCount);
-            return frameCount.get();
-        } finally {
-            lock.unlock();
-        }
+        acquireLatestFrame();
+        System.arraycopy(buffers[frontIndex], 0, dest, 0, pixelCount);
+        return frameNumbers[frontIndex];
+    }
+
+    /**
+     * Switches to pull mode and tells the producer when the consumer reads next.
+     * Frames completed more than one frame period (plus a little slack for an
+     * early read) before that read would be replaced before anyone sees them,
+     * so the producer skips them; frames from then on are wanted until the
+     * next request.
+     *
+     * @param readAtNanos      {@link System#nanoTime()} of the consumer's next read
+     * @param framePeriodNanos real time between frames the producer publishes; 0 or less only leaves the slack
+     */
+    public void requestFrame(long readAtNanos, long framePeriodNanos) {
+        wantedAfterNanos = readAtNanos - Math.max(0, framePeriodNanos) - READ_SLACK_NANOS;
+    }
+
+    /**
+     * Whether the producer should fill and publish a frame completed at the given time.
+     * Always true in push mode.
+     */
+    public boolean isFrameWanted(long nowNanos) {
+        long wantedAfter = wantedAfterNanos;
+        return wantedAfter == PUSH || nowNanos - wantedAfter >= 0;
     }
 
     /**
@@ -0,0 +1,145 @@
+package dev.chasem.hg.virtualtale.emulator;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Frame pacing for an emulator loop, based on absolute deadlines.
+ *
+ * Frame n of a run is due at {@code start + n * period}, so oversleeping one
+ * frame makes the next wait shorter instead of pushing every later frame back:
+ * timing errors don't accumulate and the core runs at its exact rate over
+ * time. A speed change starts a new run from the current deadline.
+ *
+ * Waiting parks the thread until {@code spinNanos} before the deadline and
+ * spins for the rest, trading a little CPU for precise wake-ups (0 disables
+ * spinning). A loop that falls more than {@code maxCatchUpFrames} behind, e.g.
+ * after a GC pause, drops the backlog and restarts from now instead of
+ * running the missed frames back-to-back.
+ *
+ * One thread advances the clock; {@link #getStats()} may be called from any thread.
+ */
+public class FrameClock {
+
+    /**
+     * Pacing statistics since {@link #start}.
+     *
+     * @param frames        frames emulated
+     * @param fps           average emulated frames per second
+     * @param avgLateNanos  average time frames started after their deadline
+     * @param maxLateNanos  largest time a frame started after its deadline
+     * @param droppedFrames frames skipped by catch-up resets
+     */
+    public record Stats(long frames, double fps, long avgLateNanos, long maxLateNanos, long droppedFrames) {
+    }
+
+    private final long spinNanos;
+    private final int maxCatchUpFrames;
+
+    // Current run: deadline of frame 0, frames since then and the period they use
+    private long baseNanos;
+    private long frameIndex;
+    private long periodNanos;
+    private long deadlineNanos;
+
+    private long startNanos;
+    private long frames;
+    private long totalLateNanos;
+    private long maxLateNanos;
+    private long droppedFrames;
+
+    /**
+     * @param spinNanos        how long before a deadline to stop parking and spin; 0 to only park
+     * @param maxCatchUpFrames most frames the loop may run late before the backlog is dropped
+     */
+    public FrameClock(long spinNanos, int maxCatchUpFrames) {
+        this.spinNanos = Math.max(0, spinNanos);
+        this.maxCatchUpFrames = Math.max(0, maxCatchUpFrames);
+    }
+
+    /**
+     * Starts a new run with the first frame due now, and resets the statistics.
+     */
+    public synchronized void start(long nowNanos) {
+        baseNanos = nowNanos;
+        deadlineNanos = nowNanos;
+        frameIndex = 0;
+        periodNanos = -1;
+        startNanos = nowNanos;
+        frames = 0;
+        totalLateNanos = 0;
+        maxLateNanos = 0;
+        droppedFrames = 0;
+    }
+
+    /**
+     * Called after each emulated frame. Returns the absolute deadline of the next
+     * frame, which may already have passed while the loop is catching up.
+     *
+     * @param periodNanos current frame period (scaled by speed); 0 or less runs unthrottled
+     * @param nowNanos    current {@link System#nanoTime()}
+     */
+    public synchronized long nextDeadline(long periodNanos, long nowNanos) {
+        frames++;
+        if (periodNanos != this.periodNanos) {
+            // Speed changed: continue from the current deadline at the new rate
+            this.periodNanos = periodNanos;
+            baseNanos = deadlineNanos;
+            frameIndex = 0;
+        }
+        if (periodNanos <= 0) {
+            baseNanos = nowNanos;
+            deadlineNanos = nowNanos;
+            return nowNanos;
+        }
+
+        frameIndex++;
+        deadlineNanos = baseNanos + frameIndex * periodNanos;
+        long behind = nowNanos - deadlineNanos;
+        if (behind > maxCatchUpFrames * periodNanos) {
+            // Too far behind to catch up smoothly: skip the missed frames
+            droppedFrames += behind / periodNanos;
+            baseNanos = nowNanos;
+            deadlineNanos = nowNanos;
+            frameIndex = 0;
+        }
+        return deadlineNanos;
+    }
+
+    /**
+     * Blocks until the deadline: parks for most of the wait, then spins the tail.
+     * Returns at once if the deadline has passed.
+     */
+    public void sleepUntil(long deadlineNanos) throws InterruptedException {
+        long remaining;
+        while ((remaining = deadlineNanos - System.nanoTime()) > spinNanos) {
+            LockSupport.parkNanos(remaining - spinNanos);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+        long now;
+        while ((now = System.nanoTime()) - deadlineNanos < 0) {
+            Thread.onSpinWait();
+        }
+        recordStart(deadlineNanos, now);
+    }
+
+    /**
+     * Records when a frame actually started relative to its deadline. Called by
+     * {@link #sleepUntil}; loops that wait some other way call it themselves.
+     */
+    public synchronized void recordStart(long deadlineNanos, long nowNanos) {
+        long late = Math.max(0, nowNanos - deadlineNanos);
+        totalLateNanos += late;
+        maxLateNanos = Math.max(maxLateNanos, late);
+    }
+
+    @Nonnull
+    public synchronized Stats getStats() {
+        long elapsed = System.nanoTime() - startNanos;
+        double fps = elapsed > 0 ? frames * 1_000_000_000.0 / elapsed : 0;
+        long avgLate = frames > 0 ? totalLateNanos / frames : 0;
+        return new Stats(frames, fps, avgLate, maxLateNanos, droppedFrames);
+    }
+}
@@ -0,0 +1,19 @@
+package dev.chasem.hg.virtualtale.emulator;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Callback that receives a backend's latest frame.
+ *
+ * The pixel array is lent by the backend and is only valid for the duration of
+ * {@link #read(int[])}: the backend reuses it for later frames, so readers must
+ * not keep a reference to it.
+ */
+@FunctionalInterface
+public interface FrameReader {
+
+    /**
+     * @param pixels native 24-bit RGB pixels (0x00RRGGBB or 0xFFRRGGBB), width * height ints
+     */
+    void read(@Nonnull int[] pixels);
+}
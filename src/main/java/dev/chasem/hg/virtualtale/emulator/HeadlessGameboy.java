@@ -7,6 +7,7 @@ import eu.rekawek.coffeegb.controller.ButtonPressEvent;
 import eu.rekawek.coffeegb.controller.ButtonReleaseEvent;
 import eu.rekawek.coffeegb.events.EventBus;
 import eu.rekawek.coffeegb.gpu.Display;
+import eu.rekawek.coffeegb.memento.Memento;
 import eu.rekawek.coffeegb.memory.cart.Cartridge;
 import eu.rekawek.coffeegb.memory.cart.CartridgeType;
 import eu.rekawek.coffeegb.memory.cart.battery.Battery;
@@ -15,18 +16,33 @@ import eu.rekawek.coffeegb.serial.SerialEndpoint;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.nio.file.Files;
 import java.util.Locale;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
 /**
  * Wraps coffee-gb's Gameboy class for headless (no-GUI) server-side use.
- * Runs the emulator loop on a daemon thread and captures frame output
- * into a FrameBuffer for the rendering pipeline.
+ * Runs the emulator loop on a daemon thread, or one frame at a time on a
+ * shared {@link EmulationScheduler} when one is given, and captures frame
+ * output into a FrameBuffer for the rendering pipeline.
+ *
+ * Save states are coffee-gb's own snapshot of the whole machine (CPU, memory,
+ * cartridge RAM, video and sound), Java-serialized and gzipped behind a small
+ * header that names the ROM.
  */
 public class HeadlessGameboy implements EmulatorBackend {
 
@@ -35,24 +51,53 @@ public class HeadlessGameboy implements EmulatorBackend {
     private static final int DISPLAY_WIDTH = 160;
     private static final int DISPLAY_HEIGHT = 144;
 
+    /** Save state header: "VTST", format version, then the ROM file name. */
+    private static final int STATE_MAGIC = 0x56545354;
+    private static final int STATE_VERSION = 1;
+    /**
+     * A memento is coffee-gb classes (and their enums) holding primitives and
+     * primitive arrays; anything else is rejected. The limits sit well above a
+     * Game Boy Color with the largest cartridge RAM, and bound what a corrupt or
+     * crafted file can make us allocate.
+     */
+    private static final ObjectInputFilter STATE_FILTER = ObjectInputFilter.Config.createFilter(
+            "maxdepth=64;maxrefs=100000;maxarray=1048576;maxbytes=33554432;"
+                    + "eu.rekawek.coffeegb.**;java.lang.Enum;!*");
+
     private final FrameBuffer frameBuffer;
     private final File romFile;
     private final File saveFile;
+    @Nullable
+    private final EmulationScheduler emulationScheduler;
+    private final FrameClock frameClock;
 
     private Gameboy gameboy;
     private Cartridge cartridge;
     private EventBus eventBus;
     private Thread emulatorThread;
+    private EmulationScheduler.Task emulationTask;
     private volatile boolean running;
     private volatile double speedMultiplier = 1.0;
 
-    // Temporary buffer for converting frames
-    private final int[] rgbBuffer = new int[DISPLAY_WIDTH * DISPLAY_HEIGHT];
+    // Held while a frame is emulated, so snapshots are taken between frames
+    private final ReentrantLock frameLock = new ReentrantLock();
+
+    // Set by the frame listeners, which coffee-gb calls from tick() on the emulation thread
+    private boolean frameReady;
+    // When the last frame was converted while running faster than real time
+    private long lastPublishNanos;
 
-    public HeadlessGameboy(@Nonnull File romFile, @Nonnull File saveFile, @Nonnull FrameBuffer frameBuffer) {
+    /**
+     * @param emulationScheduler shared pool to emulate on, or null for a dedicated thread
+     * @param frameClock         paces emulated frames
+     */
+    public HeadlessGameboy(@Nonnull File romFile, @Nonnull File saveFile, @Nonnull FrameBuffer frameBuffer,
+                           @Nullable EmulationScheduler emulationScheduler, @Nonnull FrameClock frameClock) {
         this.romFile = romFile;
         this.saveFile = saveFile;
         this.frameBuffer = frameBuffer;
+        this.emulationScheduler = emulationScheduler;
+        this.frameClock = frameClock;
     }
 
     @Override
@@ -85,9 +130,14 @@ public class HeadlessGameboy implements EmulatorBackend {
         gameboy.init(eventBus, SerialEndpoint.NULL_ENDPOINT, null);
 
         running = true;
-        emulatorThread = new Thread(this::runLoop, "VirtualTale-GB-" + romFile.getName());
-        emulatorThread.setDaemon(true);
-        emulatorThread.start();
+        if (emulationScheduler != null) {
+            emulationTask = emulationScheduler.schedule("GB " + romFile.getName(), this::runScheduledFrame,
+                    this::getFrameNanos, frameClock);
+        } else {
+            emulatorThread = new Thread(this::runLoop, "VirtualTale-GB-" + romFile.getName());
+            emulatorThread.setDaemon(true);
+            emulatorThread.start();
+        }
 
         LOGGER.atInfo().log("[VT] GB emulator started for ROM: %s (save: %s)",
                 romFile.getName(),
@@ -97,6 +147,11 @@ public class HeadlessGameboy implements EmulatorBackend {
     @Override
     public void stop() {
         running = false;
+        if (emulationTask != null) {
+            // Let an in-flight frame finish before the core is torn down
+            emulationTask.cancel();
+            emulationTask = null;
+        }
         if (cartridge != null) {
             try {
                 cartridge.flushBattery();
@@ -160,6 +215,100 @@ public class HeadlessGameboy implements EmulatorBackend {
         return speedMultiplier;
     }
 
+    @Override
+    public boolean supportsSaveStates() {
+        return true;
+    }
+
+    @Nonnull
+    @Override
+    public byte[] saveState() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(STATE_MAGIC);
+        out.writeInt(STATE_VERSION);
+        out.writeUTF(romFile.getName());
+
+        // Snapshot between frames, so it can't see a half-emulated frame. The memento
+        // is a copy, so the slow serialization runs without holding up emulation.
+        Memento<Gameboy> memento;
+        frameLock.lock();
+        try {
+            Gameboy gb = gameboy;
+            if (gb == null) {
+                throw new IllegalStateException("Emulator is not running");
+            }
+            memento = gb.saveToMemento();
+        } finally {
+            frameLock.unlock();
+        }
+
+        try (ObjectOutputStream objects = new ObjectOutputStream(new GZIPOutputStream(out))) {
+            objects.writeObject(memento);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void loadState(@Nonnull byte[] state) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(state));
+        if (in.readInt() != STATE_MAGIC) {
+            throw new IOException("Not a VirtualTale save state");
+        }
+        int version = in.readInt();
+        if (version != STATE_VERSION) {
+            throw new IOException("Unsupported save state version: " + version);
+        }
+        String stateRom = in.readUTF();
+        if (!stateRom.equals(romFile.getName())) {
+            throw new IOException("Save state is for a different game: " + stateRom);
+        }
+
+        Memento<Gameboy> memento;
+        try (ObjectInputStream objects = new ObjectInputStream(new GZIPInputStream(in))) {
+            objects.setObjectInputFilter(STATE_FILTER);
+            memento = (Memento<Gameboy>) objects.readObject();
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("Corrupt save state: " + e.getMessage(), e);
+        }
+
+        frameLock.lock();
+        try {
+            Gameboy gb = gameboy;
+            if (gb == null) {
+                throw new IllegalStateException("Emulator is not running");
+            }
+            gb.restoreFromMemento(memento);
+        } finally {
+            frameLock.unlock();
+        }
+        LOGGER.atInfo().log("[VT] Restored GB save state for ROM: %s", romFile.getName());
+    }
+
+    @Nonnull
+    @Override
+    public FrameClock getFrameClock() {
+        return frameClock;
+    }
+
+    @Override
+    public boolean readLatestFrame(@Nonnull FrameReader reader) {
+        // coffee-gb pushes frames into the triple buffer; the acquired front buffer is ours to read
+        int[] frame = frameBuffer.acquireLatestFrame();
+        if (frame == null) {
+            return false;
+        }
+        reader.read(frame);
+        return true;
+    }
+
+    @Override
+    public void requestFrame(long readAtNanos) {
+        // Above normal speed publishes are throttled to one per real frame (see shouldPublishFrame)
+        frameBuffer.requestFrame(readAtNanos, Math.max(FRAME_NANOS, getFrameNanos()));
+    }
+
     @Nullable
     private static Button mapButton(@Nonnull EmulatorButton button) {
         return switch (button) {
@@ -176,35 +325,23 @@ public class HeadlessGameboy implements EmulatorBackend {
     }
 
     /**
-     * Game Boy CPU runs at 4,194,304 Hz. Each tick() advances 4 clocks (1 M-cycle).
-     * A full frame takes 69,905 ticks (~59.7 FPS).
-     * We pace the loop to real-time by sleeping after each emulated frame.
+     * Game Boy CPU runs at 4,194,304 Hz and the LCD draws a frame every 70,224
+     * clocks (~59.7 FPS). Each tick() advances the display by one clock, so a
+     * frame normally ends with coffee-gb's frame-ready event; this count only
+     * bounds a frame while the LCD is off and no event arrives.
+     * The {@link FrameClock} paces the loop to real time after each emulated frame.
      */
-    private static final int TICKS_PER_FRAME = 69_905;
+    private static final int TICKS_PER_FRAME = 70_224;
     private static final long FRAME_NANOS = 16_742_706L; // 1_000_000_000 / 59.7275
 
     private void runLoop() {
         try {
-            long frameStartNanos = System.nanoTime();
-            int tickCount = 0;
-
+            frameClock.start(System.nanoTime());
             while (running && !Thread.currentThread().isInterrupted()) {
-                gameboy.tick();
-                tickCount++;
-
-                if (tickCount >= TICKS_PER_FRAME) {
-                    tickCount = 0;
+                emulateFrame();
 
-                    // Wait until real-time catches up to emulated time
-                    long elapsed = System.nanoTime() - frameStartNanos;
-                    long targetNanos = (long) (FRAME_NANOS / speedMultiplier);
-                    long sleepNanos = targetNanos - elapsed;
-                    if (sleepNanos > 1_000_000) { // >1ms worth of waiting
-                        Thread.sleep(sleepNanos / 1_000_000, (int) (sleepNanos % 1_000_000));
-                    }
-
-                    frameStartNanos = System.nanoTime();
-                }
+                // Wait until real-time catches up to emulated time
+                frameClock.sleepUntil(frameClock.nextDeadline(getFrameNanos(), System.nanoTime()));
             }
         } catch (InterruptedException e) {
             // Normal shutdown
@@ -218,14 +355,77 @@ public class HeadlessGameboy implements EmulatorBackend {
         }
     }
 
+    /** One step of the pooled loop; the scheduler logs the error and stops the task if it throws. */
+    private void runScheduledFrame() {
+        try {
+            emulateFrame();
+        } catch (RuntimeException e) {
+            running = false;
+            throw e;
+        }
+    }
+
+    /**
+     * Runs the core until the display finishes a frame. Control state (running,
+     * interrupts, speed) is only checked between frames, so the inner loop is
+     * just the tick call and a plain field read.
+     */
+    private void emulateFrame() {
+        frameLock.lock();
+        try {
+            Gameboy gb = gameboy;
+            frameReady = false;
+            int ticks = 0;
+            while (!frameReady && ticks < TICKS_PER_FRAME) {
+                gb.tick();
+                ticks++;
+            }
+        } finally {
+            frameLock.unlock();
+        }
+    }
+
+    private long getFrameNanos() {
+        return (long) (FRAME_NANOS / speedMultiplier);
+    }
+
+    // Frames are converted straight into the frame buffer's back buffer and published by index swap
+
     private void onDmgFrame(Display.DmgFrameReadyEvent event) {
-        event.toRgb(rgbBuffer, false);
-        frameBuffer.submitFrame(rgbBuffer);
+        frameReady = true;
+        if (shouldPublishFrame()) {
+            event.toRgb(frameBuffer.getBackBuffer(), false);
+            frameBuffer.publishBackBuffer();
+        }
     }
 
     private void onGbcFrame(Display.GbcFrameReadyEvent event) {
-        event.toRgb(rgbBuffer);
-        frameBuffer.submitFrame(rgbBuffer);
+        frameReady = true;
+        if (shouldPublishFrame()) {
+            event.toRgb(frameBuffer.getBackBuffer());
+            frameBuffer.publishBackBuffer();
+        }
+    }
+
+    /**
+     * Only frames the render loop will read are converted: when it pulls frames,
+     * the ones completed well before its next read are skipped. In fast-forward,
+     * frames are also converted at most once per real-time frame period, since
+     * the renderer never samples more often than that.
+     */
+    private boolean shouldPublishFrame() {
+        long now = System.nanoTime();
+        if (!frameBuffer.isFrameWanted(now)) {
+            return false;
+        }
+        if (speedMultiplier <= 1.0) {
+            return true;
+        }
+        if (now - lastPublishNanos < FRAME_NANOS) {
+            return false;
+        }
+        lastPublishNanos = now;
+        return true;
     }
 
     @Nonnull
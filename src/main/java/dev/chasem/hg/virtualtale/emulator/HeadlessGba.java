@@ -5,18 +5,28 @@ import ygba.Agent;
 import ygba.memory.IORegMemory;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.io.File;
 import java.io.IOException;
 
 /**
  * Wraps BooYahGBA's {@link Agent} class for headless GBA emulation.
- * Runs the emulation loop on a dedicated thread at ~59.7 FPS and
- * pushes frames into a shared {@link FrameBuffer}.
+ * Runs the emulation loop on a dedicated thread at ~59.7 FPS, or one frame
+ * at a time on a shared {@link EmulationScheduler} when one is given.
+ *
+ * Like the Game Boy backend, finished frames are copied out of the agent into
+ * a {@link FrameBuffer} and published by index swap, so the emulator never
+ * waits on the render thread. When the render loop pulls frames (see
+ * {@link #requestFrame}), frames it would never read are not copied.
  *
  * BooYahGBA outputs pixels in ARGB format (0xFFRRGGBB). The rendering
  * pipeline's ColorMapper handles conversion to Hytale's RGBA format.
  * Since ColorMapper does {@code (pixel << 8) | 0xFF}, the 0xFF alpha
  * byte shifts out and gets re-added at the bottom — works correctly.
+ *
+ * Save states are not supported: {@link Agent} has no way to capture or
+ * restore its CPU, memory and video state. Once our BooYahGBA fork exposes
+ * one, this class can override {@link #saveState()} and {@link #loadState}.
  */
 public class HeadlessGba implements EmulatorBackend {
 
@@ -24,7 +34,6 @@ public class HeadlessGba implements EmulatorBackend {
 
     private static final int DISPLAY_WIDTH = 240;
     private static final int DISPLAY_HEIGHT = 160;
-    private static final int PIXEL_COUNT = DISPLAY_WIDTH * DISPLAY_HEIGHT;
 
     /** GBA runs at ~59.7275 FPS. */
     private static final long FRAME_NANOS = 16_742_706L;
@@ -33,21 +42,31 @@ public class HeadlessGba implements EmulatorBackend {
     private final File biosFile;
     private final File saveDir;
     private final FrameBuffer frameBuffer;
+    @Nullable
+    private final EmulationScheduler emulationScheduler;
+    private final FrameClock frameClock;
 
-    private Agent agent;
+    private volatile Agent agent;
     private Thread emulatorThread;
+    private EmulationScheduler.Task emulationTask;
     private volatile boolean running;
     private volatile double speedMultiplier = 1.0;
+    // When the last frame was published (emulator thread only)
+    private long lastPublishNanos;
 
-    // Reusable buffer to avoid per-frame allocation
-    private final int[] pixelBuffer = new int[PIXEL_COUNT];
-
-    public HeadlessGba(@Nonnull File romFile, @Nonnull File biosFile,
-                       @Nonnull File saveDir, @Nonnull FrameBuffer frameBuffer) {
+    /**
+     * @param emulationScheduler shared pool to emulate on, or null for a dedicated thread
+     * @param frameClock         paces emulated frames
+     */
+    public HeadlessGba(@Nonnull File romFile, @Nonnull File biosFile, @Nonnull File saveDir,
+                       @Nonnull FrameBuffer frameBuffer, @Nullable EmulationScheduler emulationScheduler,
+                       @Nonnull FrameClock frameClock) {
         this.romFile = romFile;
         this.biosFile = biosFile;
         this.saveDir = saveDir;
         this.frameBuffer = frameBuffer;
+        this.emulationScheduler = emulationScheduler;
+        this.frameClock = frameClock;
     }
 
     @Override
@@ -77,9 +96,14 @@ public class HeadlessGba implements EmulatorBackend {
         agent.setupSavePersistence(saveDir, romFile.getName());
 
         running = true;
-        emulatorThread = new Thread(this::runLoop, "VirtualTale-GBA-" + romFile.getName());
-        emulatorThread.setDaemon(true);
-        emulatorThread.start();
+        if (emulationScheduler != null) {
+            emulationTask = emulationScheduler.schedule("GBA " + romFile.getName(), this::runScheduledFrame,
+                    this::getFrameNanos, frameClock);
+        } else {
+            emulatorThread = new Thread(this::runLoop, "VirtualTale-GBA-" + romFile.getName());
+            emulatorThread.setDaemon(true);
+            emulatorThread.start();
+        }
 
         LOGGER.atInfo().log("[VT] GBA emulator started for ROM: %s (saveDir: %s)",
                 romFile.getName(),
@@ -89,6 +113,11 @@ public class HeadlessGba implements EmulatorBackend {
     @Override
     public void stop() {
         running = false;
+        if (emulationTask != null) {
+            // Let an in-flight frame finish before the agent is stopped
+            emulationTask.cancel();
+            emulationTask = null;
+        }
         if (agent != null) {
             agent.stop();
             agent = null;
@@ -141,6 +170,29 @@ public class HeadlessGba implements EmulatorBackend {
         return speedMultiplier;
     }
 
+    @Nonnull
+    @Override
+    public FrameClock getFrameClock() {
+        return frameClock;
+    }
+
+    @Override
+    public boolean readLatestFrame(@Nonnull FrameReader reader) {
+        // The acquired front buffer is ours to read until the next acquire
+        int[] frame = frameBuffer.acquireLatestFrame();
+        if (frame == null) {
+            return false;
+        }
+        reader.read(frame);
+        return true;
+    }
+
+    @Override
+    public void requestFrame(long readAtNanos) {
+        // Above normal speed publishes are throttled to one per real frame (see shouldPublishFrame)
+        frameBuffer.requestFrame(readAtNanos, Math.max(FRAME_NANOS, getFrameNanos()));
+    }
+
     private static int mapButton(@Nonnull EmulatorButton button) {
         return switch (button) {
             case A -> IORegMemory.BTN_A;
@@ -158,24 +210,12 @@ public class HeadlessGba implements EmulatorBackend {
 
     private void runLoop() {
         try {
+            frameClock.start(System.nanoTime());
             while (running && !Thread.currentThread().isInterrupted()) {
-                long frameStart = System.nanoTime();
-
-                agent.runOneFrame();
-
-                // Copy pixels from the agent into our buffer and submit
-                int[] agentPixels = agent.getPixels();
-                System.arraycopy(agentPixels, 0, pixelBuffer, 0,
-                        Math.min(agentPixels.length, PIXEL_COUNT));
-                frameBuffer.submitFrame(pixelBuffer);
+                emulateFrame();
 
                 // Frame pacing
-                long elapsed = System.nanoTime() - frameStart;
-                long targetNanos = (long) (FRAME_NANOS / speedMultiplier);
-                long sleepNanos = targetNanos - elapsed;
-                if (sleepNanos > 1_000_000) {
-                    Thread.sleep(sleepNanos / 1_000_000, (int) (sleepNanos % 1_000_000));
-                }
+                frameClock.sleepUntil(frameClock.nextDeadline(getFrameNanos(), System.nanoTime()));
             }
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
@@ -188,4 +228,48 @@ public class HeadlessGba implements EmulatorBackend {
         }
     }
 
+    /** One step of the pooled loop; the scheduler logs the error and stops the task if it throws. */
+    private void runScheduledFrame() {
+        try {
+            emulateFrame();
+        } catch (RuntimeException e) {
+            running = false;
+            throw e;
+        }
+    }
+
+    private void emulateFrame() {
+        Agent current = agent;
+        current.runOneFrame();
+        if (shouldPublishFrame()) {
+            System.arraycopy(current.getPixels(), 0, frameBuffer.getBackBuffer(), 0, DISPLAY_WIDTH * DISPLAY_HEIGHT);
+            frameBuffer.publishBackBuffer();
+        }
+    }
+
+    /**
+     * Only frames the render loop will read are copied: when it pulls frames,
+     * the ones completed well before its next read are skipped. In fast-forward,
+     * frames are also copied at most once per real-time frame period, since
+     * the renderer never samples more often than that.
+     */
+    private boolean shouldPublishFrame() {
+        long now = System.nanoTime();
+        if (!frameBuffer.isFrameWanted(now)) {
+            return false;
+        }
+        if (speedMultiplier <= 1.0) {
+            return true;
+        }
+        if (now - lastPublishNanos < FRAME_NANOS) {
+            return false;
+        }
+        lastPublishNanos = now;
+        return true;
+    }
+
+    private long getFrameNanos() {
+        return (long) (FRAME_NANOS / speedMultiplier);
+    }
+
 }
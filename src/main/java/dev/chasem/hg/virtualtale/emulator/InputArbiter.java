@@ -0,0 +1,128 @@
+package dev.chasem.hg.virtualtale.emulator;
+
+import javax.annotation.Nonnull;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decides which players of a shared session may press buttons.
+ *
+ * A shared session has one owner (who started it) and any number of co-op
+ * players who joined it. Spectators are not players and never control the
+ * emulator. Who of the players is let through depends on the {@link Mode}.
+ *
+ * Thread-safe: presses arrive on network threads, commands on world threads.
+ */
+public class InputArbiter {
+
+    /**
+     * Input arbitration policy of a shared session.
+     */
+    public enum Mode {
+        /** Only the owner controls the game; everyone else watches. */
+        OWNER,
+        /** Every player's presses go to the emulator. */
+        SHARED,
+        /** One player at a time holds the controller and passes it on. */
+        TURNS
+    }
+
+    private final UUID ownerId;
+    private final Set<UUID> players = ConcurrentHashMap.newKeySet();
+
+    private volatile Mode mode;
+
+    // Holder of the controller in TURNS mode, always the owner or a player
+    private volatile UUID controllerId;
+
+    public InputArbiter(@Nonnull UUID ownerId, @Nonnull Mode mode) {
+        this.ownerId = ownerId;
+        this.mode = mode;
+        this.controllerId = ownerId;
+    }
+
+    /**
+     * Returns whether a press by this player should reach the emulator.
+     */
+    public boolean canControl(@Nonnull UUID playerId) {
+        return switch (mode) {
+            case OWNER -> ownerId.equals(playerId);
+            case SHARED -> isPlayer(playerId);
+            case TURNS -> controllerId.equals(playerId);
+        };
+    }
+
+    /**
+     * Hands the controller to another player (TURNS mode). The current holder
+     * and the owner may pass it.
+     *
+     * @throws IllegalStateException    if the session isn't taking turns, or {@code fromId} may not pass
+     * @throws IllegalArgumentException if {@code toId} isn't a player of this session
+     */
+    public synchronized void passControl(@Nonnull UUID fromId, @Nonnull UUID toId) {
+        if (mode != Mode.TURNS) {
+            throw new IllegalStateException("Session is not taking turns");
+        }
+        if (!fromId.equals(controllerId) && !fromId.equals(ownerId)) {
+            throw new IllegalStateException("You don't have the controller");
+        }
+        if (!isPlayer(toId)) {
+            throw new IllegalArgumentException("Player is not in this session");
+        }
+        controllerId = toId;
+    }
+
+    public void addPlayer(@Nonnull UUID playerId) {
+        if (!ownerId.equals(playerId)) {
+            players.add(playerId);
+        }
+    }
+
+    /**
+     * Removes a co-op player. If they held the controller, it goes back to the owner.
+     */
+    public synchronized void removePlayer(@Nonnull UUID playerId) {
+        players.remove(playerId);
+        if (playerId.equals(controllerId)) {
+            controllerId = ownerId;
+        }
+    }
+
+    /** Whether the player is the owner or a co-op player of this session. */
+    public boolean isPlayer(@Nonnull UUID playerId) {
+        return ownerId.equals(playerId) || players.contains(playerId);
+    }
+
+    /**
+     * Changes the policy. Switching to TURNS gives the controller to the owner.
+     */
+    public synchronized void setMode(@Nonnull Mode mode) {
+        if (mode == Mode.TURNS && this.mode != Mode.TURNS) {
+            controllerId = ownerId;
+        }
+        this.mode = mode;
+    }
+
+    @Nonnull
+    public Mode getMode() {
+        return mode;
+    }
+
+    /** Holder of the controller in TURNS mode. */
+    @Nonnull
+    public UUID getControllerId() {
+        return controllerId;
+    }
+
+    @Nonnull
+    public UUID getOwnerId() {
+        return ownerId;
+    }
+
+    /** Co-op players, excluding the owner. */
+    @Nonnull
+    public Set<UUID> getPlayers() {
+        return Set.copyOf(players);
+    }
+}
@@ -0,0 +1,149 @@
+package dev.chasem.hg.virtualtale.emulator;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Shared render executor for all emulator sessions.
+ *
+ * Instead of one scheduler thread per session, every session's render tick is
+ * multiplexed onto a bounded pool (sized to the machine's cores by default).
+ * Ticks are ordered by their due time, so each session gets its turn in
+ * deadline order regardless of how many sessions are running.
+ *
+ * Each registered task is guarded so it never renders concurrently with itself,
+ * and late catch-up executions (after a tick overran its period) are skipped
+ * instead of being run back-to-back.
+ */
+public class RenderScheduler {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    /** How long {@link Task#cancel()} waits for an in-flight tick to finish. */
+    private static final long CANCEL_WAIT_MS = 500;
+
+    private final ScheduledThreadPoolExecutor executor;
+
+    /**
+     * @param threads number of render threads; values below 1 use one thread per available core
+     */
+    public RenderScheduler(int threads) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ScheduledThreadPoolExecutor(poolSize, r -> {
+            Thread t = new Thread(r, "VT-Render-" + threadIndex.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.executor.setRemoveOnCancelPolicy(true);
+        LOGGER.atInfo().log("[VT] Render scheduler started with %d thread(s)", poolSize);
+    }
+
+    /**
+     * Schedules a render tick to run at the given rate on the shared pool.
+     *
+     * @param name debug name used in error logs (usually the session owner)
+     * @param tick the render work for one frame
+     * @param fps  target ticks per second
+     * @return handle used to cancel the task
+     */
+    @Nonnull
+    public Task schedule(@Nonnull String name, @Nonnull Runnable tick, int fps) {
+        long periodNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, fps);
+        Task task = new Task(name, tick, periodNanos);
+        task.future = executor.scheduleAtFixedRate(task::run, periodNanos, periodNanos, TimeUnit.NANOSECONDS);
+        return task;
+    }
+
+    /**
+     * Stops the pool. Registered tasks should be cancelled first.
+     */
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(CANCEL_WAIT_MS, TimeUnit.MILLISECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int getPoolSize() {
+        return executor.getCorePoolSize();
+    }
+
+    /**
+     * A periodic render task registered with the scheduler.
+     */
+    public static final class Task {
+
+        private final String name;
+        private final Runnable tick;
+        private final long periodNanos;
+        private final ReentrantLock renderLock = new ReentrantLock();
+
+        private volatile boolean cancelled;
+        private volatile ScheduledFuture<?> future;
+        private long lastRunNanos;
+
+        private Task(@Nonnull String name, @Nonnull Runnable tick, long periodNanos) {
+            this.name = name;
+            this.tick = tick;
+            this.periodNanos = periodNanos;
+            this.lastRunNanos = System.nanoTime();
+        }
+
+        private void run() {
+            // Skip if a previous tick is still rendering
+            if (!renderLock.tryLock()) {
+                return;
+            }
+            try {
+                // A run already taken off the queue when the task was cancelled
+                if (cancelled) {
+                    return;
+                }
+                // Fixed-rate scheduling fires missed executions back-to-back after an
+                // overrun; drop those so a slow tick doesn't turn into a burst.
+                long now = System.nanoTime();
+                if (now - lastRunNanos < periodNanos / 2) {
+                    return;
+                }
+                lastRunNanos = now;
+                tick.run();
+            } catch (Throwable t) {
+                // Never let an exception escape: it would silently cancel the periodic task
+                LOGGER.atWarning().log("[VT] Render task error for %s: %s", name, t.getMessage());
+            } finally {
+                renderLock.unlock();
+            }
+        }
+
+        /**
+         * Cancels future ticks and waits (briefly) for an in-flight tick to finish,
+         * so no stale frames are sent after this returns.
+         */
+        public void cancel() {
+            cancelled = true;
+            ScheduledFuture<?> f = future;
+            if (f != null) {
+                f.cancel(false);
+            }
+            try {
+                if (renderLock.tryLock(CANCEL_WAIT_MS, TimeUnit.MILLISECONDS)) {
+                    renderLock.unlock();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -8,15 +8,18 @@ import java.io.File;
  * Detects the emulator backend type from a ROM file's extension.
  */
 public enum RomType {
-    GAMEBOY(160, 144),
-    GBA(240, 160);
+    GAMEBOY(160, 144, 1),
+    // A full ARM core emulated on one thread, several times a Game Boy's CPU use
+    GBA(240, 160, 4);
 
     private final int width;
     private final int height;
+    private final int cost;
 
-    RomType(int width, int height) {
+    RomType(int width, int height, int cost) {
         this.width = width;
         this.height = height;
+        this.cost = cost;
     }
 
     public int getWidth() {
@@ -27,6 +30,14 @@ public enum RomType {
         return height;
     }
 
+    /**
+     * Relative CPU cost of one emulator of this type, in admission cost units
+     * (a Game Boy is 1). See {@link AdmissionController}.
+     */
+    public int getCost() {
+        return cost;
+    }
+
     /**
      * Detects the ROM type from a file's extension.
      *
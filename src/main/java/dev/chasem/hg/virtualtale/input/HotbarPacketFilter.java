@@ -23,7 +23,9 @@ import java.util.concurrent.TimeUnit;
 
 /**
  * Packet filter that intercepts hotbar key presses (1-8) and maps them to
- * emulator buttons for players with active VirtualTale sessions.
+ * emulator buttons for players with active VirtualTale sessions, including
+ * co-op players of a shared session (whose presses the session's input
+ * arbitration may ignore).
  *
  * Mapping:
  *   Key 1 (slot 0) -> UP       Key 5 (slot 4) -> A
@@ -78,7 +80,7 @@ public class HotbarPacketFilter implements PlayerPacketFilter {
             return false;
         }
 
-        EmulatorSession session = sessionManager.getSession(playerRef.getUuid());
+        EmulatorSession session = sessionManager.getInputSession(playerRef.getUuid());
         if (session == null || !session.isRunning()) {
             return false;
         }
@@ -137,9 +139,12 @@ public class HotbarPacketFilter implements PlayerPacketFilter {
             return;
         }
 
-        // Press the button
+        // Press the button (unless it isn't this player's turn)
+        if (!session.pressButton(playerId, button)) {
+            resetHotbar(playerRef);
+            return;
+        }
         LOGGER.atInfo().log("[VT-DBG] >>> PRESS %s -> emulator for %s", button, playerId);
-        session.getBackend().pressButton(button);
 
         // Schedule release
         ScheduledFuture<?> releaseFuture = releaseScheduler.schedule(() -> {
@@ -149,11 +154,17 @@ public class HotbarPacketFilter implements PlayerPacketFilter {
         }, buttonHoldMs, TimeUnit.MILLISECONDS);
         playerReleases.put(button, releaseFuture);
 
-        // Force hotbar back to neutral slot so the same key can be pressed again
+        resetHotbar(playerRef);
+    }
+
+    /**
+     * Forces the hotbar back to the neutral slot so the same key can be pressed again.
+     */
+    private void resetHotbar(@Nonnull PlayerRef playerRef) {
         try {
             playerRef.getPacketHandler().write(new SetActiveSlot(HOTBAR_SECTION_ID, NEUTRAL_SLOT));
         } catch (Exception e) {
-            LOGGER.atWarning().log("[VT] Failed to reset hotbar for %s: %s", playerId, e.getMessage());
+            LOGGER.atWarning().log("[VT] Failed to reset hotbar for %s: %s", playerRef.getUuid(), e.getMessage());
         }
     }
 
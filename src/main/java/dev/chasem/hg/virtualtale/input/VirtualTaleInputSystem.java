@@ -67,7 +67,7 @@ public class VirtualTaleInputSystem extends EntityTickingSystem<EntityStore> {
         PlayerRef playerRef = store.getComponent(ref, PlayerRef.getComponentType());
         if (playerRef == null) return;
 
-        EmulatorSession session = sessionManager.getSession(playerRef.getUuid());
+        EmulatorSession session = sessionManager.getInputSession(playerRef.getUuid());
         if (session == null || !session.isRunning()) return;
 
         double currentX = transform.getPosition().x;
@@ -92,14 +92,16 @@ public class VirtualTaleInputSystem extends EntityTickingSystem<EntityStore> {
                 deltaX, deltaZ, button, playerRef.getUuid(),
                 currentX, currentZ, input.getAnchorX(), input.getAnchorZ());
 
-        // Press and schedule release
-        session.getBackend().pressButton(button);
+        // Press and schedule release (presses the input arbitration rejects still snap back)
+        boolean pressed = session.pressButton(playerRef.getUuid(), button);
 
         // Teleport player back to anchor
         transform.getPosition().x = input.getAnchorX();
         transform.getPosition().y = input.getAnchorY();
         transform.getPosition().z = input.getAnchorZ();
 
+        if (!pressed) return;
+
         // Schedule button release after a short hold
         final EmulatorButton pressedButton = button;
         Thread.ofVirtual().name("VT-Release-" + pressedButton).start(() -> {
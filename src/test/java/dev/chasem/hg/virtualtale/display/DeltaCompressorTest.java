@@ -99,6 +99,80 @@ class DeltaCompressorTest {
         assertThat(compressor.hasChanged(25, pixels)).isTrue();
     }
 
+    @Test
+    void hashMode_detectsChangesAndRepeats() {
+        DeltaCompressor hashed = new DeltaCompressor(5, 5, CHUNK_PIXELS, DeltaCompressor.Mode.HASH);
+        int[] pixels = new int[CHUNK_PIXELS];
+        Arrays.fill(pixels, 0x000000FF);
+
+        assertThat(hashed.hasChanged(0, pixels)).isTrue();
+        assertThat(hashed.hasChanged(0, pixels)).isFalse();
+
+        pixels[4095] = 0xFF0000FF;
+        assertThat(hashed.hasChanged(0, pixels)).isTrue();
+
+        hashed.reset();
+        assertThat(hashed.hasChanged(0, pixels)).isTrue();
+    }
+
+    @Test
+    void hashVerifiedMode_matchesFullMode() {
+        DeltaCompressor verified = new DeltaCompressor(5, 5, CHUNK_PIXELS, DeltaCompressor.Mode.HASH_VERIFIED);
+        int[] pixels = new int[CHUNK_PIXELS];
+
+        for (int frame = 0; frame < 6; frame++) {
+            if (frame % 2 == 0) {
+                pixels[frame * 100] = 0x123456FF + frame;
+            }
+            assertThat(verified.hasChanged(0, pixels)).isEqualTo(compressor.hasChanged(0, pixels));
+        }
+    }
+
+    @Test
+    void hashVerifiedMode_collidingHashIsCaughtByPixelCompare() {
+        DeltaCompressor verified = new DeltaCompressor(5, 5, CHUNK_PIXELS, DeltaCompressor.Mode.HASH_VERIFIED);
+        int[] pixels1 = new int[CHUNK_PIXELS];
+        int[] pixels2 = new int[CHUNK_PIXELS];
+        pixels2[0] = 1;
+
+        // Force a "collision" by supplying the same hash for different content
+        verified.hasChanged(0, pixels1, 42L);
+        assertThat(verified.hasChanged(0, pixels2, 42L)).isTrue();
+        assertThat(verified.hasChanged(0, pixels2, 42L)).isFalse();
+    }
+
+    @Test
+    void hash_rowByRowMatchesWholeChunk() {
+        int[] pixels = new int[CHUNK_PIXELS];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = i * 0x9E3779B1;
+        }
+
+        long h = DeltaCompressor.hashSeed();
+        for (int row = 0; row < MapDisplayRenderer.CHUNK_IMAGE_SIZE; row++) {
+            int from = row * MapDisplayRenderer.CHUNK_IMAGE_SIZE;
+            h = DeltaCompressor.hashInto(h, pixels, from, from + MapDisplayRenderer.CHUNK_IMAGE_SIZE);
+        }
+
+        assertThat(DeltaCompressor.finishHash(h)).isEqualTo(DeltaCompressor.hash(pixels, CHUNK_PIXELS));
+    }
+
+    @Test
+    void indexedTiles_detectChangesInEveryMode() {
+        for (DeltaCompressor.Mode mode : DeltaCompressor.Mode.values()) {
+            DeltaCompressor indexed = new DeltaCompressor(5, 5, CHUNK_PIXELS, mode);
+            byte[] tile = new byte[CHUNK_PIXELS];
+            Arrays.fill(tile, (byte) 2);
+
+            assertThat(indexed.hasChanged(3, tile)).isTrue();
+            assertThat(indexed.hasChanged(3, tile)).isFalse();
+
+            tile[CHUNK_PIXELS - 1] = 3;
+            assertThat(indexed.hasChanged(3, tile)).isTrue();
+            assertThat(indexed.hasChanged(3, tile)).isFalse();
+        }
+    }
+
     @Test
     void gridDimensions_correct() {
         assertThat(compressor.getGridWidth()).isEqualTo(5);
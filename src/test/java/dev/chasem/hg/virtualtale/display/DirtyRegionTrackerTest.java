@@ -0,0 +1,86 @@
+package dev.chasem.hg.virtualtale.display;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DirtyRegionTrackerTest {
+
+    private static final int W = 16;
+    private static final int H = 8;
+
+    private DirtyRegionTracker tracker;
+    private int[] frame;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new DirtyRegionTracker(W, H);
+        frame = new int[W * H];
+    }
+
+    @Test
+    void firstFrame_isEntirelyDirty() {
+        assertThat(tracker.update(frame)).isTrue();
+        assertThat(tracker.isDirty(0, 0, 0, 0)).isTrue();
+        assertThat(tracker.isDirty(W - 1, W - 1, H - 1, H - 1)).isTrue();
+    }
+
+    @Test
+    void identicalFrame_isClean() {
+        tracker.update(frame);
+
+        assertThat(tracker.update(frame.clone())).isFalse();
+        assertThat(tracker.isDirty(0, W - 1, 0, H - 1)).isFalse();
+    }
+
+    @Test
+    void changedPixel_onlyDirtiesItsRegion() {
+        tracker.update(frame);
+
+        frame[3 * W + 10] = 0xFFFFFF;
+        assertThat(tracker.update(frame)).isTrue();
+
+        assertThat(tracker.isDirty(10, 10, 3, 3)).isTrue();
+        assertThat(tracker.isDirty(0, 15, 0, 7)).isTrue();
+        // Same row, other columns
+        assertThat(tracker.isDirty(0, 9, 3, 3)).isFalse();
+        assertThat(tracker.isDirty(11, 15, 3, 3)).isFalse();
+        // Same column, other rows
+        assertThat(tracker.isDirty(10, 10, 0, 2)).isFalse();
+        assertThat(tracker.isDirty(10, 10, 4, 7)).isFalse();
+    }
+
+    @Test
+    void dirtySpan_coversFirstToLastChangedColumn() {
+        tracker.update(frame);
+
+        frame[2 * W + 4] = 1;
+        frame[2 * W + 12] = 1;
+        tracker.update(frame);
+
+        // Columns between the two changes are conservatively dirty
+        assertThat(tracker.isDirty(8, 8, 2, 2)).isTrue();
+        assertThat(tracker.isDirty(0, 3, 2, 2)).isFalse();
+        assertThat(tracker.isDirty(13, 15, 2, 2)).isFalse();
+    }
+
+    @Test
+    void changeIsReportedOnce() {
+        tracker.update(frame);
+        frame[0] = 42;
+        tracker.update(frame);
+
+        assertThat(tracker.update(frame)).isFalse();
+        assertThat(tracker.isDirty(0, 0, 0, 0)).isFalse();
+    }
+
+    @Test
+    void invalidate_makesNextFrameEntirelyDirty() {
+        tracker.update(frame);
+        tracker.invalidate();
+
+        assertThat(tracker.update(frame)).isTrue();
+        assertThat(tracker.isDirty(5, 5, 5, 5)).isTrue();
+    }
+}
@@ -0,0 +1,53 @@
+package dev.chasem.hg.virtualtale.display;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FramePaletteTest {
+
+    private static final int BLACK = 0x000000FF;
+    private static final int BORDER_COLOR = 0x2A2A2AFF;
+
+    @Test
+    void indexSpan_sameColorGetsSameIndex() {
+        FramePalette palette = new FramePalette(BLACK, BORDER_COLOR);
+        int[] frame = {0xFFFFFF, 0x000000, 0xFFFFFF, 0x555555};
+        byte[] indices = new byte[frame.length];
+
+        assertThat(palette.indexSpan(frame, true, indices, 0, frame.length)).isTrue();
+
+        assertThat(indices[0]).isEqualTo(indices[2]);
+        assertThat(indices[0]).isNotEqualTo(indices[1]);
+        assertThat(palette.size()).isEqualTo(3);
+    }
+
+    @Test
+    void expand_convertsIndicesToRgba() {
+        FramePalette palette = new FramePalette(BLACK, BORDER_COLOR);
+        int[] frame = {0xAABBCC, 0x112233};
+        byte[] indices = new byte[4];
+        palette.indexSpan(frame, true, indices, 0, 2);
+        indices[2] = FramePalette.BLACK_INDEX;
+        indices[3] = FramePalette.BORDER_INDEX;
+
+        assertThat(palette.expand(indices, 4)).containsExactly(0xAABBCCFF, 0x112233FF, BLACK, BORDER_COLOR);
+    }
+
+    @Test
+    void indexSpan_tooManyColors_overflows() {
+        FramePalette palette = new FramePalette(BLACK, BORDER_COLOR);
+        int[] frame = new int[FramePalette.MAX_COLORS + 1];
+        for (int i = 0; i < frame.length; i++) {
+            frame[i] = i;
+        }
+        byte[] indices = new byte[frame.length];
+
+        assertThat(palette.indexSpan(frame, false, indices, 0, FramePalette.MAX_COLORS)).isTrue();
+        assertThat(palette.indexSpan(frame, false, indices, 0, frame.length)).isFalse();
+
+        palette.clear();
+        assertThat(palette.size()).isZero();
+        assertThat(palette.indexSpan(frame, false, indices, 1, frame.length)).isTrue();
+    }
+}
@@ -1,5 +1,7 @@
 package dev.chasem.hg.virtualtale.display;
 
+import com.hypixel.hytale.protocol.packets.worldmap.MapChunk;
+import com.hypixel.hytale.protocol.packets.worldmap.UpdateWorldMap;
 import org.junit.jupiter.api.Test;
 
 import java.util.Arrays;
@@ -121,6 +123,494 @@ class MapDisplayRendererTest {
         assertThat(chunk[idx(4, 0)]).isEqualTo(expected10);
     }
 
+    @Test
+    void fillChunk_matchesExtractChunk_everyScaleAndResolution() {
+        int[][] resolutions = {{160, 144}, {240, 160}};
+        for (int[] res : resolutions) {
+            int w = res[0];
+            int h = res[1];
+            int[] frame = new int[w * h];
+            for (int i = 0; i < frame.length; i++) {
+                frame[i] = (i * 0x9E3779B1) | 0xFF; // distinct RGBA per pixel
+            }
+
+            for (int scale = 1; scale <= 8; scale++) {
+                MapDisplayRenderer renderer = new MapDisplayRenderer(7, -3, scale, w, h);
+                int innerMinX = renderer.getGridMinChunkX() + MapDisplayRenderer.PADDING_CHUNKS;
+                int innerMinZ = renderer.getGridMinChunkZ() + MapDisplayRenderer.PADDING_CHUNKS;
+
+                for (int row = 0; row < renderer.getInnerGridHeight(); row++) {
+                    for (int col = 0; col < renderer.getInnerGridWidth(); col++) {
+                        int chunkX = innerMinX + col;
+                        int chunkZ = innerMinZ + row;
+                        int[] rowLut = MapDisplayRenderer.buildLut(chunkZ * CHUNK,
+                                renderer.getDisplayStartZ(), h * scale, scale, w);
+                        int[] colLut = MapDisplayRenderer.buildLut(chunkX * CHUNK,
+                                renderer.getDisplayStartX(), w * scale, scale, 1);
+
+                        int[] expected = new int[IMG_PIXELS];
+                        MapDisplayRenderer.extractChunk(frame, chunkX, chunkZ, scale, expected,
+                                renderer.getDisplayStartX(), renderer.getDisplayStartZ(),
+                                w * scale, h * scale, w, h);
+                        int[] actual = new int[IMG_PIXELS];
+                        MapDisplayRenderer.fillChunk(frame, false, rowLut, colLut, actual);
+
+                        assertThat(actual).isEqualTo(expected);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void fillChunk_reducedImages_bulkRowsMatchFullImage() {
+        int[][] resolutions = {{160, 144}, {240, 160}};
+        int bulkChunks = 0;
+        for (int[] res : resolutions) {
+            int w = res[0];
+            int h = res[1];
+            int[] rgbFrame = new int[w * h];
+            for (int i = 0; i < rgbFrame.length; i++) {
+                rgbFrame[i] = (i * 0x9E3779B1) & 0xFFFFFF;
+            }
+
+            for (int scale = 1; scale <= 8; scale++) {
+                MapDisplayRenderer renderer = new MapDisplayRenderer(7, -3, scale, w, h);
+                int innerMinX = renderer.getGridMinChunkX() + MapDisplayRenderer.PADDING_CHUNKS;
+                int innerMinZ = renderer.getGridMinChunkZ() + MapDisplayRenderer.PADDING_CHUNKS;
+                for (int row = 0; row < renderer.getInnerGridHeight(); row++) {
+                    for (int col = 0; col < renderer.getInnerGridWidth(); col++) {
+                        int[] rowLut = MapDisplayRenderer.buildLut((innerMinZ + row) * CHUNK,
+                                renderer.getDisplayStartZ(), h * scale, scale, w);
+                        int[] colLut = MapDisplayRenderer.buildLut((innerMinX + col) * CHUNK,
+                                renderer.getDisplayStartX(), w * scale, scale, 1);
+                        int factor = MapDisplayRenderer.reductionFactor(rowLut, colLut);
+                        int[] reducedRows = MapDisplayRenderer.sampleLut(rowLut, factor);
+                        int[] reducedCols = MapDisplayRenderer.sampleLut(colLut, factor);
+                        if (MapDisplayRenderer.contiguousRunStart(reducedCols) >= 0) {
+                            bulkChunks++;
+                        }
+
+                        int[] full = new int[IMG_PIXELS];
+                        MapDisplayRenderer.fillChunk(rgbFrame, true, rowLut, colLut, full);
+                        int size = IMG / factor;
+                        int[] reduced = new int[size * size];
+                        MapDisplayRenderer.fillChunk(rgbFrame, true, reducedRows, reducedCols, reduced);
+
+                        for (int py = 0; py < size; py++) {
+                            for (int px = 0; px < size; px++) {
+                                assertThat(reduced[py * size + px]).isEqualTo(full[idx(px * factor, py * factor)]);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        // Display chunks at power-of-two scales take the bulk row copy
+        assertThat(bulkChunks).isGreaterThan(0);
+    }
+
+    @Test
+    void fillChunk_convertsRgbInSamePass() {
+        int[] rgbFrame = new int[160 * 144];
+        Arrays.fill(rgbFrame, 0x99c886);
+
+        // Chunk (0,0) with display at (0,0): every pixel is display content
+        int[] rowLut = MapDisplayRenderer.buildLut(0, 0, 144, 1, 160);
+        int[] colLut = MapDisplayRenderer.buildLut(0, 0, 160, 1, 1);
+        int[] chunk = new int[IMG_PIXELS];
+        MapDisplayRenderer.fillChunk(rgbFrame, true, rowLut, colLut, chunk);
+
+        assertThat(chunk[idx(0, 0)]).isEqualTo(0x99c886FF);
+        assertThat(chunk[idx(IMG - 1, IMG - 1)]).isEqualTo(0x99c886FF);
+    }
+
+    @Test
+    void renderRgbFrame_matchesRenderFrameOnConvertedPixels() {
+        int[] rgb = new int[160 * 144];
+        for (int i = 0; i < rgb.length; i++) {
+            rgb[i] = (i * 31) & 0xFFFFFF;
+        }
+        int[] rgba = new int[rgb.length];
+        ColorMapper.toRgba(rgb, rgba, rgb.length);
+
+        MapDisplayRenderer fromRgb = new MapDisplayRenderer(80, 72, 2);
+        MapDisplayRenderer fromRgba = new MapDisplayRenderer(80, 72, 2);
+        fromRgb.renderRgbFrame(rgb);
+        fromRgba.renderFrame(rgba);
+
+        // Same content was recorded for every chunk, so the other input is "unchanged"
+        assertThat(fromRgb.renderFrame(rgba)).isNull();
+        assertThat(fromRgba.renderRgbFrame(rgb)).isNull();
+    }
+
+    @Test
+    void classifyChunk_identifiesEachKind() {
+        // Display at world [0,160) x [0,144), border [-5,165) x [-5,149)
+        int[] displayRows = MapDisplayRenderer.buildLut(0, 0, 144, 1, 160);
+        int[] displayCols = MapDisplayRenderer.buildLut(0, 0, 160, 1, 1);
+        int[] edgeRows = MapDisplayRenderer.buildLut(-32, 0, 144, 1, 160);   // black then border
+        int[] edgeCols = MapDisplayRenderer.buildLut(-32, 0, 160, 1, 1);
+        int[] mixedCols = MapDisplayRenderer.buildLut(160, 0, 160, 1, 1);  // border then black
+        int[] outsideCols = MapDisplayRenderer.buildLut(-96, 0, 160, 1, 1);
+
+        assertThat(MapDisplayRenderer.classifyChunk(displayRows, displayCols))
+                .isEqualTo(MapDisplayRenderer.ChunkKind.DISPLAY);
+        assertThat(MapDisplayRenderer.classifyChunk(displayRows, edgeCols))
+                .isEqualTo(MapDisplayRenderer.ChunkKind.BORDER_EDGE);
+        assertThat(MapDisplayRenderer.classifyChunk(edgeRows, edgeCols))
+                .isEqualTo(MapDisplayRenderer.ChunkKind.BORDER_EDGE);
+        assertThat(MapDisplayRenderer.classifyChunk(displayRows, outsideCols))
+                .isEqualTo(MapDisplayRenderer.ChunkKind.PADDING);
+
+        // Display shifted by 5: chunk (0,0) has border rows/cols then display
+        int[] shiftedRows = MapDisplayRenderer.buildLut(0, 5, 144, 1, 160);
+        int[] shiftedCols = MapDisplayRenderer.buildLut(0, 5, 160, 1, 1);
+        assertThat(MapDisplayRenderer.classifyChunk(shiftedRows, shiftedCols))
+                .isEqualTo(MapDisplayRenderer.ChunkKind.MIXED);
+        assertThat(MapDisplayRenderer.classifyChunk(shiftedRows, mixedCols))
+                .isEqualTo(MapDisplayRenderer.ChunkKind.BORDER_EDGE);
+
+        // Border exactly filling a chunk: display starting 32 blocks in with a 32-block border
+        int[] borderOnlyRows = new int[IMG];
+        Arrays.fill(borderOnlyRows, MapDisplayRenderer.LUT_BORDER);
+        assertThat(MapDisplayRenderer.classifyChunk(borderOnlyRows, displayCols))
+                .isEqualTo(MapDisplayRenderer.ChunkKind.BORDER);
+    }
+
+    @Test
+    void renderFrame_onlyDisplayChunksAreRenderedEachFrame() {
+        MapDisplayRenderer renderer = new MapDisplayRenderer(80, 72, 1);
+        int inner = renderer.getInnerGridWidth() * renderer.getInnerGridHeight();
+
+        // Scale 1 at (80,72): display [0,160)x[0,144) covers 5x5 chunks exactly,
+        // the surrounding ring of inner chunks only holds border/black
+        assertThat(renderer.getDynamicChunkCount()).isEqualTo(25);
+        assertThat(renderer.getDynamicChunkCount()).isLessThan(inner);
+
+        int[] frame = new int[160 * 144];
+        Arrays.fill(frame, 0x000000FF);
+        renderer.renderFrame(frame);
+
+        // Changing every display pixel re-sends only the display chunks
+        Arrays.fill(frame, 0xFFFFFFFF);
+        var packet = renderer.renderFrame(frame);
+        assertThat(packet).isNotNull();
+        assertThat(packet.chunks.length).isEqualTo(renderer.getDynamicChunkCount());
+    }
+
+    @Test
+    void renderFrame_singlePixelChange_onlyReRendersAffectedChunk() {
+        MapDisplayRenderer renderer = new MapDisplayRenderer(80, 72, 1);
+        int[] frame = new int[160 * 144];
+        Arrays.fill(frame, 0x000000FF);
+        renderer.renderFrame(frame);
+
+        // Emulator pixel (100, 50) -> world block (100, 50) -> chunk (3, 1)
+        frame[50 * 160 + 100] = 0xFF0000FF;
+        var packet = renderer.renderFrame(frame);
+
+        assertThat(packet).isNotNull();
+        assertThat(packet.chunks.length).isEqualTo(1);
+        assertThat(packet.chunks[0].chunkX).isEqualTo(3);
+        assertThat(packet.chunks[0].chunkZ).isEqualTo(1);
+    }
+
+    @Test
+    void fillChunk_hashMatchesDeltaCompressorHash() {
+        int scale = 2;
+        int[] rowLut = MapDisplayRenderer.buildLut(0, 10, 144 * scale, scale, 160);
+        int[] columnLut = MapDisplayRenderer.buildLut(64, 10, 160 * scale, scale, 1);
+        int[] frame = new int[160 * 144];
+        for (int i = 0; i < frame.length; i++) {
+            frame[i] = (i * 31) | 0xFF;
+        }
+        int[] dest = new int[MapDisplayRenderer.CHUNK_IMAGE_SIZE * MapDisplayRenderer.CHUNK_IMAGE_SIZE];
+
+        long hash = MapDisplayRenderer.fillChunk(frame, false, rowLut, columnLut, dest, true);
+
+        assertThat(hash).isEqualTo(DeltaCompressor.hash(dest, dest.length));
+    }
+
+    @Test
+    void renderFrame_hashModeMatchesFullMode() {
+        MapDisplayRenderer full = new MapDisplayRenderer(0, 0, 1, 160, 144);
+        MapDisplayRenderer hashed = new MapDisplayRenderer(0, 0, 1, 160, 144, DeltaCompressor.Mode.HASH);
+        int[] frame = new int[160 * 144];
+
+        for (int f = 0; f < 4; f++) {
+            if (f != 2) {
+                frame[f * 1000] = 0xABCDEFFF;
+            }
+            UpdateWorldMap a = full.renderFrame(frame);
+            UpdateWorldMap b = hashed.renderFrame(frame);
+            assertThat(b == null).isEqualTo(a == null);
+            if (a != null) {
+                assertThat(b.chunks.length).isEqualTo(a.chunks.length);
+            }
+        }
+    }
+
+    @Test
+    void fillIndexedChunk_expandsToSameImageAsFillChunk() {
+        int[] shades = {0xE0F8D0, 0x88C070, 0x346856, 0x081820};
+        int[] frame = new int[160 * 144];
+        for (int i = 0; i < frame.length; i++) {
+            frame[i] = shades[(i * 7 + i / 160) % shades.length];
+        }
+        FramePalette palette = new FramePalette(BLACK, BORDER_COLOR);
+        byte[] indexedFrame = new byte[frame.length];
+        assertThat(palette.indexSpan(frame, true, indexedFrame, 0, frame.length)).isTrue();
+
+        for (int scale = 1; scale <= 4; scale++) {
+            MapDisplayRenderer renderer = new MapDisplayRenderer(7, -3, scale, 160, 144);
+            int innerMinX = renderer.getGridMinChunkX() + MapDisplayRenderer.PADDING_CHUNKS;
+            int innerMinZ = renderer.getGridMinChunkZ() + MapDisplayRenderer.PADDING_CHUNKS;
+            for (int row = 0; row < renderer.getInnerGridHeight(); row++) {
+                for (int col = 0; col < renderer.getInnerGridWidth(); col++) {
+                    int[] rowLut = MapDisplayRenderer.buildLut((innerMinZ + row) * CHUNK,
+                            renderer.getDisplayStartZ(), 144 * scale, scale, 160);
+                    int[] colLut = MapDisplayRenderer.buildLut((innerMinX + col) * CHUNK,
+                            renderer.getDisplayStartX(), 160 * scale, scale, 1);
+
+                    int[] expected = new int[IMG_PIXELS];
+                    MapDisplayRenderer.fillChunk(frame, true, rowLut, colLut, expected);
+                    byte[] tile = new byte[IMG_PIXELS];
+                    long hash = MapDisplayRenderer.fillIndexedChunk(indexedFrame, rowLut, colLut, tile, true);
+
+                    assertThat(palette.expand(tile, IMG_PIXELS)).isEqualTo(expected);
+                    assertThat(hash).isEqualTo(DeltaCompressor.hash(tile, IMG_PIXELS));
+                }
+            }
+        }
+    }
+
+    @Test
+    void renderFrame_fewColors_usesPalette_manyColors_fallsBack() {
+        MapDisplayRenderer renderer = new MapDisplayRenderer(0, 0, 1, 160, 144);
+        int[] frame = new int[160 * 144];
+        Arrays.fill(frame, 0x88C070);
+
+        assertThat(renderer.renderRgbFrame(frame)).isNotNull();
+        assertThat(renderer.isPaletteActive()).isTrue();
+
+        for (int i = 0; i < frame.length; i++) {
+            frame[i] = i;
+        }
+        UpdateWorldMap packet = renderer.renderRgbFrame(frame);
+        assertThat(renderer.isPaletteActive()).isFalse();
+        assertThat(packet.chunks.length).isEqualTo(renderer.getDynamicChunkCount());
+
+        renderer.reset();
+        assertThat(renderer.isPaletteActive()).isTrue();
+    }
+
+    @Test
+    void renderFrame_paletteOutputMatchesRgbaOutput() {
+        // A frame with too many colors keeps one renderer on RGBA tiles from the start
+        MapDisplayRenderer indexed = new MapDisplayRenderer(0, 0, 2, 160, 144);
+        MapDisplayRenderer rgba = new MapDisplayRenderer(0, 0, 2, 160, 144);
+        int[] manyColors = new int[160 * 144];
+        for (int i = 0; i < manyColors.length; i++) {
+            manyColors[i] = i;
+        }
+        rgba.renderRgbFrame(manyColors);
+
+        int[] frame = new int[160 * 144];
+        Arrays.fill(frame, 0x081820);
+        indexed.renderRgbFrame(frame);
+        rgba.renderRgbFrame(frame);
+
+        frame[80 * 160 + 40] = 0xE0F8D0;
+        UpdateWorldMap a = indexed.renderRgbFrame(frame);
+        UpdateWorldMap b = rgba.renderRgbFrame(frame);
+
+        assertThat(indexed.isPaletteActive()).isTrue();
+        assertThat(rgba.isPaletteActive()).isFalse();
+        assertThat(a.chunks.length).isEqualTo(1);
+        assertThat(b.chunks.length).isEqualTo(1);
+        assertThat(a.chunks[0].chunkX).isEqualTo(b.chunks[0].chunkX);
+        assertThat(a.chunks[0].chunkZ).isEqualTo(b.chunks[0].chunkZ);
+        assertThat(a.chunks[0].image.data).isEqualTo(b.chunks[0].image.data);
+    }
+
+    @Test
+    void reductionFactor_followsScale() {
+        // Display starting on a chunk edge: each emulator pixel is 2 * scale image pixels wide
+        for (int scale : new int[]{1, 2, 4, 8}) {
+            int[] lut = MapDisplayRenderer.buildLut(0, 0, 160 * scale, scale, 1);
+            assertThat(MapDisplayRenderer.reductionFactor(lut, lut)).isEqualTo(2 * scale);
+        }
+        int[] scale3 = MapDisplayRenderer.buildLut(0, 0, 160 * 3, 3, 1);
+        assertThat(MapDisplayRenderer.reductionFactor(scale3, scale3)).isEqualTo(2);
+    }
+
+    @Test
+    void renderFrame_reducedImagesAreLossless() {
+        for (int scale = 1; scale <= 8; scale++) {
+            MapDisplayRenderer renderer = new MapDisplayRenderer(13, -7, scale, 160, 144);
+            int[] frame = new int[160 * 144];
+            for (int i = 0; i < frame.length; i++) {
+                frame[i] = (i * 0x9E3779B1) | 0xFF;
+            }
+
+            UpdateWorldMap packet = renderer.renderFrame(frame);
+            boolean anyReducedDisplayChunk = false;
+            for (MapChunk chunk : packet.chunks) {
+                int size = chunk.image.width;
+                int factor = IMG / size;
+                int[] full = new int[IMG_PIXELS];
+                MapDisplayRenderer.extractChunk(frame, chunk.chunkX, chunk.chunkZ, scale, full,
+                        renderer.getDisplayStartX(), renderer.getDisplayStartZ(),
+                        160 * scale, 144 * scale, 160, 144);
+                for (int y = 0; y < IMG; y++) {
+                    for (int x = 0; x < IMG; x++) {
+                        assertThat(chunk.image.data[(y / factor) * size + x / factor]).isEqualTo(full[idx(x, y)]);
+                    }
+                }
+                anyReducedDisplayChunk |= size > 1 && size < IMG;
+            }
+            assertThat(anyReducedDisplayChunk).isTrue();
+        }
+    }
+
+    @Test
+    void renderFrame_scale4_displayChunksAre8x8() {
+        MapDisplayRenderer renderer = new MapDisplayRenderer(0, 0, 4, 160, 144);
+        int[] frame = new int[160 * 144];
+        renderer.renderFrame(frame);
+
+        frame[72 * 160 + 80] = 0xFFFFFFFF;
+        UpdateWorldMap packet = renderer.renderFrame(frame);
+
+        assertThat(packet.chunks.length).isEqualTo(1);
+        assertThat(packet.chunks[0].image.width).isEqualTo(8);
+        assertThat(packet.chunks[0].image.data.length).isEqualTo(64);
+    }
+
+    @Test
+    void renderFrame_chunkCap_spreadsFullRedrawNearestCenterFirst() {
+        MapDisplayRenderer renderer = new MapDisplayRenderer(0, 0, 1, 160, 144);
+        renderer.setMaxChunksPerTick(4);
+        int total = renderer.getDynamicChunkCount();
+        int[] frame = new int[160 * 144];
+        for (int i = 0; i < frame.length; i++) {
+            frame[i] = (i * 0x9E3779B1) | 0xFF;
+        }
+
+        UpdateWorldMap first = renderer.renderFrame(frame);
+        int firstDynamic = first.chunks.length - (renderer.getGridWidth() * renderer.getGridHeight() - total);
+        assertThat(firstDynamic).isEqualTo(4);
+        assertThat(renderer.getPendingChunkCount()).isEqualTo(total - 4);
+
+        // The display (centered on 0,0) covers chunks -3..2 x -3..2; the first dynamic chunks touch the center
+        MapChunk nearest = first.chunks[first.chunks.length - 4];
+        assertThat(Math.abs(nearest.chunkX + 0.5)).isLessThanOrEqualTo(1.5);
+        assertThat(Math.abs(nearest.chunkZ + 0.5)).isLessThanOrEqualTo(1.5);
+
+        // Unchanged frames keep draining the deferred chunks
+        int sent = 4;
+        while (renderer.getPendingChunkCount() > 0) {
+            UpdateWorldMap next = renderer.renderFrame(frame);
+            assertThat(next.chunks.length).isLessThanOrEqualTo(4);
+            sent += next.chunks.length;
+        }
+        assertThat(sent).isEqualTo(total);
+        assertThat(renderer.renderFrame(frame)).isNull();
+    }
+
+    @Test
+    void renderFrame_chunkCap_deferredChunkSendsNewestContent() {
+        MapDisplayRenderer renderer = new MapDisplayRenderer(0, 0, 1, 160, 144);
+        int[] frame = new int[160 * 144];
+        renderer.renderFrame(frame);
+
+        renderer.setMaxChunksPerTick(1);
+        frame[0] = 0x111111FF;           // top-left corner chunk
+        frame[72 * 160 + 80] = 0x222222FF; // center chunk
+        UpdateWorldMap first = renderer.renderFrame(frame);
+        assertThat(first.chunks.length).isEqualTo(1);
+        assertThat(renderer.getPendingChunkCount()).isEqualTo(1);
+
+        // The corner changes again before it was sent: only the newest version goes out
+        frame[0] = 0x333333FF;
+        UpdateWorldMap second = renderer.renderFrame(frame);
+        assertThat(second.chunks.length).isEqualTo(1);
+        assertThat(renderer.getPendingChunkCount()).isZero();
+        int[] data = second.chunks[0].image.data;
+        assertThat(Arrays.stream(data).anyMatch(p -> p == 0x333333FF)).isTrue();
+        assertThat(Arrays.stream(data).anyMatch(p -> p == 0x111111FF)).isFalse();
+        assertThat(renderer.renderFrame(frame)).isNull();
+    }
+
+    @Test
+    void renderFrame_chunkCap_sendsRecentlyChangedChunkBeforeCenter() {
+        MapDisplayRenderer renderer = new MapDisplayRenderer(0, 0, 1, 160, 144);
+        int[] frame = new int[160 * 144];
+        renderer.renderFrame(frame);
+        // Let the initial full redraw age out of the recent window
+        for (int i = 0; i < 20; i++) {
+            renderer.renderFrame(frame);
+        }
+
+        // The corner keeps changing (say, a sprite moving there); the center is static
+        renderer.setMaxChunksPerTick(1);
+        frame[0] = 0x111111FF;
+        renderer.renderFrame(frame);
+
+        frame[0] = 0x333333FF;
+        frame[72 * 160 + 80] = 0x222222FF;
+        UpdateWorldMap packet = renderer.renderFrame(frame);
+        assertThat(packet.chunks.length).isEqualTo(1);
+        assertThat(Arrays.stream(packet.chunks[0].image.data).anyMatch(p -> p == 0x333333FF)).isTrue();
+        assertThat(renderer.getPendingChunkCount()).isEqualTo(1);
+
+        // The deferred center chunk goes out on the next tick
+        UpdateWorldMap next = renderer.renderFrame(frame);
+        assertThat(Arrays.stream(next.chunks[0].image.data).anyMatch(p -> p == 0x222222FF)).isTrue();
+        assertThat(renderer.getPendingChunkCount()).isZero();
+    }
+
+    @Test
+    void renderKeyframe_matchesFreshRenderAndKeepsDeltaState() {
+        MapDisplayRenderer stream = new MapDisplayRenderer(0, 0, 2, 160, 144);
+        assertThat(stream.renderKeyframe()).isNull();
+        stream.setKeyframesEnabled(true);
+
+        int[] frame = new int[160 * 144];
+        Arrays.fill(frame, 0x081820);
+        stream.renderRgbFrame(frame);
+        frame[72 * 160 + 80] = 0xE0F8D0;
+        stream.renderRgbFrame(frame);
+
+        // A new viewer's keyframe is what a brand new renderer sends for the same frame
+        long version = stream.getKeyframeVersion();
+        UpdateWorldMap statics = stream.renderStaticChunks();
+        UpdateWorldMap keyframe = stream.renderKeyframe();
+        MapChunk[] all = Arrays.copyOf(statics.chunks, statics.chunks.length + keyframe.chunks.length);
+        System.arraycopy(keyframe.chunks, 0, all, statics.chunks.length, keyframe.chunks.length);
+        UpdateWorldMap fresh = new MapDisplayRenderer(0, 0, 2, 160, 144).renderRgbFrame(frame);
+        assertThat(keyframe.chunks.length).isEqualTo(stream.getDynamicChunkCount());
+        assertThat(all.length).isEqualTo(stream.getGridWidth() * stream.getGridHeight());
+        assertThat(all.length).isEqualTo(fresh.chunks.length);
+        for (MapChunk expected : fresh.chunks) {
+            MapChunk actual = Arrays.stream(all)
+                    .filter(c -> c.chunkX == expected.chunkX && c.chunkZ == expected.chunkZ)
+                    .findFirst().orElseThrow();
+            assertThat(actual.image.width).isEqualTo(expected.image.width);
+            assertThat(actual.image.data).isEqualTo(expected.image.data);
+        }
+
+        // The stream itself is unaffected, and an unchanged frame keeps the keyframe version
+        assertThat(stream.renderRgbFrame(frame)).isNull();
+        assertThat(stream.getKeyframeVersion()).isEqualTo(version);
+        frame[0] = 0x346856;
+        stream.renderRgbFrame(frame);
+        assertThat(stream.getKeyframeVersion()).isNotEqualTo(version);
+        stream.setKeyframesEnabled(false);
+        assertThat(stream.hasKeyframe()).isFalse();
+    }
+
     @Test
     void constructorCentersOnPlayer_scale1() {
         // Player at (80, 72) -> display center at (80,72)
@@ -0,0 +1,74 @@
+package dev.chasem.hg.virtualtale.display;
+
+import com.hypixel.hytale.protocol.packets.worldmap.MapChunk;
+import com.hypixel.hytale.protocol.packets.worldmap.MapImage;
+import com.hypixel.hytale.protocol.packets.worldmap.UpdateWorldMap;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RenderPoolTest {
+
+    @Test
+    void release_objectsAreReused() {
+        RenderPool pool = new RenderPool();
+        int[] pixels = pool.acquirePixels(64);
+        MapImage image = pool.acquireImage(8, 8, pixels);
+        MapChunk chunk = pool.acquireChunk(1, 2, image);
+        UpdateWorldMap packet = pool.acquirePacket(new MapChunk[]{chunk}, 1);
+        long allocations = pool.getAllocations();
+
+        pool.release(packet);
+
+        assertThat(pool.acquirePixels(64)).isSameAs(pixels);
+        assertThat(pool.acquireImage(8, 8, pixels)).isSameAs(image);
+        assertThat(pool.acquireChunk(3, 4, image)).isSameAs(chunk);
+        assertThat(pool.acquirePacket(new MapChunk[]{chunk}, 1)).isSameAs(packet);
+        assertThat(pool.getAllocations()).isEqualTo(allocations);
+    }
+
+    @Test
+    void acquirePixels_oddLengthsAreNotPooled() {
+        RenderPool pool = new RenderPool();
+        int[] pixels = pool.acquirePixels(100);
+        UpdateWorldMap packet = pool.acquirePacket(new MapChunk[]{
+                pool.acquireChunk(0, 0, pool.acquireImage(10, 10, pixels))}, 1);
+
+        pool.release(packet);
+
+        assertThat(pool.acquirePixels(100)).isNotSameAs(pixels);
+    }
+
+    @Test
+    void pooledRenderer_steadyStateAllocatesNothing_andMatchesUnpooled() {
+        MapDisplayRenderer pooled = new MapDisplayRenderer(0, 0, 2, 160, 144);
+        MapDisplayRenderer plain = new MapDisplayRenderer(0, 0, 2, 160, 144);
+        RenderPool pool = new RenderPool();
+        pooled.setRenderPool(pool);
+
+        int[][] frames = new int[2][160 * 144];
+        for (int i = 0; i < frames[0].length; i++) {
+            frames[0][i] = i & 0xFFFFFF;
+            frames[1][i] = (i * 7) & 0xFFFFFF;
+        }
+
+        long warmedUp = 0;
+        for (int f = 0; f < 6; f++) {
+            UpdateWorldMap expected = plain.renderRgbFrame(frames[f % 2]);
+            UpdateWorldMap packet = pooled.renderRgbFrame(frames[f % 2]);
+
+            assertThat(packet.chunks.length).isEqualTo(expected.chunks.length);
+            for (int c = 0; c < packet.chunks.length; c++) {
+                assertThat(packet.chunks[c].chunkX).isEqualTo(expected.chunks[c].chunkX);
+                assertThat(packet.chunks[c].chunkZ).isEqualTo(expected.chunks[c].chunkZ);
+                assertThat(packet.chunks[c].image.data).isEqualTo(expected.chunks[c].image.data);
+            }
+            pool.release(packet);
+
+            if (f == 2) {
+                warmedUp = pool.getAllocations();
+            }
+        }
+        assertThat(pool.getAllocations()).isEqualTo(warmedUp);
+    }
+}
@@ -0,0 +1,29 @@
+package dev.chasem.hg.virtualtale.display;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class VectorKernelsTest {
+
+    @Test
+    void toRgba_matchesScalar_forEveryTailLengthAndOffset() {
+        assumeTrue(VectorSupport.ENABLED, "Vector API not available");
+        Random random = new Random(1);
+        for (int len = 0; len <= 70; len++) {
+            for (int offset = 0; offset < 3; offset++) {
+                int[] src = random.ints(len + offset).toArray();
+                int[] expected = new int[len + 5];
+                int[] actual = new int[len + 5];
+
+                ColorMapper.toRgbaScalar(src, offset, expected, 5 - offset, len);
+                VectorKernels.toRgba(src, offset, actual, 5 - offset, len);
+
+                assertThat(actual).isEqualTo(expected);
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package dev.chasem.hg.virtualtale.emulator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.IntConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdmissionControllerTest {
+
+    private static final IntConsumer IGNORE = position -> { };
+
+    @Test
+    void noLimits_admitsEveryone() {
+        AdmissionController admission = new AdmissionController(0, 0, 0);
+        for (int i = 0; i < 100; i++) {
+            assertThat(admission.acquire(UUID.randomUUID(), RomType.GBA, IGNORE)).isZero();
+        }
+        assertThat(admission.getActiveCount()).isEqualTo(100);
+    }
+
+    @Test
+    void sessionCap_queuesInOrderAndAdmitsOnRelease() {
+        AdmissionController admission = new AdmissionController(1, 0, 0);
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+        List<Integer> secondUpdates = new ArrayList<>();
+        List<Integer> thirdUpdates = new ArrayList<>();
+
+        assertThat(admission.acquire(first, RomType.GAMEBOY, IGNORE)).isZero();
+        assertThat(admission.acquire(second, RomType.GAMEBOY, secondUpdates::add)).isEqualTo(1);
+        assertThat(admission.acquire(third, RomType.GAMEBOY, thirdUpdates::add)).isEqualTo(2);
+
+        admission.release(first);
+
+        assertThat(secondUpdates).containsExactly(0);
+        assertThat(thirdUpdates).containsExactly(1);
+        assertThat(admission.getPosition(third)).isEqualTo(1);
+        // The admitted player's slot is reserved until they start
+        assertThat(admission.acquire(UUID.randomUUID(), RomType.GAMEBOY, IGNORE)).isEqualTo(2);
+        assertThat(admission.acquire(second, RomType.GAMEBOY, IGNORE)).isZero();
+        assertThat(admission.getActiveCount()).isEqualTo(1);
+    }
+
+    @Test
+    void gbaCap_onlyLimitsGba() {
+        AdmissionController admission = new AdmissionController(0, 1, 0);
+        assertThat(admission.acquire(UUID.randomUUID(), RomType.GBA, IGNORE)).isZero();
+        assertThat(admission.acquire(UUID.randomUUID(), RomType.GAMEBOY, IGNORE)).isZero();
+        assertThat(admission.acquire(UUID.randomUUID(), RomType.GBA, IGNORE)).isEqualTo(1);
+    }
+
+    @Test
+    void costBudget_countsGbaAsSeveralGameBoys() {
+        AdmissionController admission = new AdmissionController(0, 0, 6);
+        UUID gba = UUID.randomUUID();
+        assertThat(admission.acquire(gba, RomType.GBA, IGNORE)).isZero();
+        assertThat(admission.acquire(UUID.randomUUID(), RomType.GAMEBOY, IGNORE)).isZero();
+        assertThat(admission.acquire(UUID.randomUUID(), RomType.GAMEBOY, IGNORE)).isZero();
+        assertThat(admission.getActiveCost()).isEqualTo(6);
+
+        assertThat(admission.acquire(UUID.randomUUID(), RomType.GAMEBOY, IGNORE)).isEqualTo(1);
+        admission.release(gba);
+        assertThat(admission.getQueueLength()).isZero();
+        assertThat(admission.getActiveCost()).isEqualTo(3);
+    }
+
+    @Test
+    void costBudget_smallerThanOneSession_stillRunsItAlone() {
+        AdmissionController admission = new AdmissionController(0, 0, 2);
+        UUID gba = UUID.randomUUID();
+        assertThat(admission.acquire(gba, RomType.GBA, IGNORE)).isZero();
+        assertThat(admission.acquire(UUID.randomUUID(), RomType.GAMEBOY, IGNORE)).isEqualTo(1);
+    }
+
+    @Test
+    void release_leavesQueue() {
+        AdmissionController admission = new AdmissionController(1, 0, 0);
+        admission.acquire(UUID.randomUUID(), RomType.GAMEBOY, IGNORE);
+        UUID waiting = UUID.randomUUID();
+        admission.acquire(waiting, RomType.GAMEBOY, IGNORE);
+
+        assertThat(admission.release(waiting)).isTrue();
+        assertThat(admission.getQueueLength()).isZero();
+        assertThat(admission.release(waiting)).isFalse();
+    }
+}
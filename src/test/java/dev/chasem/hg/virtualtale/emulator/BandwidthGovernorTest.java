@@ -0,0 +1,84 @@
+package dev.chasem.hg.virtualtale.emulator;
+
+import com.hypixel.hytale.protocol.packets.worldmap.MapChunk;
+import com.hypixel.hytale.protocol.packets.worldmap.MapImage;
+import com.hypixel.hytale.protocol.packets.worldmap.UpdateWorldMap;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BandwidthGovernorTest {
+
+    private static final long MS = 1_000_000L;
+
+    @Test
+    void disabled_neverSkips() {
+        BandwidthGovernor governor = new BandwidthGovernor(0, 0);
+        governor.recordSent(10_000_000);
+
+        assertThat(governor.isEnabled()).isFalse();
+        assertThat(governor.tryAcquireTick(1)).isTrue();
+        assertThat(governor.getSkippedTicks()).isZero();
+    }
+
+    @Test
+    void overBudget_skipsTicksUntilRefilled() {
+        // 100 KB/s, so a 50 KB frame puts the session 25 KB into debt (after the 25 KB burst)
+        BandwidthGovernor governor = new BandwidthGovernor(100_000, 0);
+        assertThat(governor.tryAcquireTick(0)).isTrue();
+        governor.recordSent(50_000);
+
+        assertThat(governor.tryAcquireTick(50 * MS)).isFalse();
+        assertThat(governor.tryAcquireTick(200 * MS)).isFalse();
+        assertThat(governor.tryAcquireTick(260 * MS)).isTrue();
+        assertThat(governor.getSkippedTicks()).isEqualTo(2);
+    }
+
+    @Test
+    void idle_burstIsCapped() {
+        BandwidthGovernor governor = new BandwidthGovernor(100_000, 0);
+
+        // A long idle period only builds up a quarter second of budget
+        assertThat(governor.tryAcquireTick(10_000 * MS)).isTrue();
+        governor.recordSent(25_000);
+        assertThat(governor.tryAcquireTick(10_000 * MS)).isFalse();
+    }
+
+    @Test
+    void bytesLastSecond_measuresSentData() {
+        BandwidthGovernor governor = new BandwidthGovernor(0, 0);
+        governor.tryAcquireTick(0);
+        governor.recordSent(1_000);
+        governor.recordSent(2_000);
+
+        governor.tryAcquireTick(1_000 * MS);
+        assertThat(governor.getBytesLastSecond()).isEqualTo(3_000);
+
+        governor.tryAcquireTick(5_000 * MS);
+        assertThat(governor.getBytesLastSecond()).isZero();
+    }
+
+    @Test
+    void recordSent_chargesEveryRecipient() {
+        UpdateWorldMap packet = new UpdateWorldMap(new MapChunk[]{
+                new MapChunk(0, 0, new MapImage(8, 8, new int[64]))
+        }, null, null);
+        BandwidthGovernor governor = new BandwidthGovernor(0, 0);
+        governor.tryAcquireTick(0);
+        governor.recordSent(packet, 3);
+
+        governor.tryAcquireTick(1_000 * MS);
+        assertThat(governor.getBytesLastSecond()).isEqualTo(3 * BandwidthGovernor.estimateBytes(packet));
+    }
+
+    @Test
+    void estimateBytes_countsImageData() {
+        UpdateWorldMap packet = new UpdateWorldMap(new MapChunk[]{
+                new MapChunk(0, 0, new MapImage(8, 8, new int[64])),
+                new MapChunk(1, 0, new MapImage(1, 1, new int[1]))
+        }, null, null);
+
+        assertThat(BandwidthGovernor.estimateBytes(packet)).isGreaterThan(65 * 4);
+        assertThat(BandwidthGovernor.estimateBytes(packet)).isLessThan(65 * 4 + 100);
+    }
+}
@@ -0,0 +1,174 @@
+package dev.chasem.hg.virtualtale.emulator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FrameBufferTest {
+
+    private static final int W = 4;
+    private static final int H = 2;
+
+    private static void publish(FrameBuffer buffer, int value) {
+        Arrays.fill(buffer.getBackBuffer(), value);
+        buffer.publishBackBuffer();
+    }
+
+    @Test
+    void acquire_beforeAnyPublish_returnsNull() {
+        FrameBuffer buffer = new FrameBuffer(W, H);
+        assertThat(buffer.acquireLatestFrame()).isNull();
+    }
+
+    @Test
+    void acquire_returnsPublishedFrameWithoutCopy() {
+        FrameBuffer buffer = new FrameBuffer(W, H);
+        int[] back = buffer.getBackBuffer();
+        Arrays.fill(back, 7);
+        buffer.publishBackBuffer();
+
+        int[] frame = buffer.acquireLatestFrame();
+        assertThat(frame).isSameAs(back);
+        assertThat(buffer.getAcquiredFrameNumber()).isEqualTo(1L);
+    }
+
+    @Test
+    void acquire_twiceWithoutPublish_returnsNullSecondTime() {
+        FrameBuffer buffer = new FrameBuffer(W, H);
+        publish(buffer, 1);
+
+        assertThat(buffer.acquireLatestFrame()).isNotNull();
+        assertThat(buffer.acquireLatestFrame()).isNull();
+    }
+
+    @Test
+    void acquire_afterSeveralPublishes_returnsLatest() {
+        FrameBuffer buffer = new FrameBuffer(W, H);
+        publish(buffer, 1);
+        publish(buffer, 2);
+        publish(buffer, 3);
+
+        int[] frame = buffer.acquireLatestFrame();
+        assertThat(frame[0]).isEqualTo(3);
+        assertThat(buffer.getAcquiredFrameNumber()).isEqualTo(3L);
+        assertThat(buffer.getFrameCount()).isEqualTo(3L);
+    }
+
+    @Test
+    void backBuffer_neverAliasesAcquiredFrame() {
+        FrameBuffer buffer = new FrameBuffer(W, H);
+        for (int i = 0; i < 10; i++) {
+            publish(buffer, i);
+            int[] frame = buffer.acquireLatestFrame();
+            assertThat(buffer.getBackBuffer()).isNotSameAs(frame);
+        }
+    }
+
+    @Test
+    void submitFrame_copiesIntoBuffer() {
+        FrameBuffer buffer = new FrameBuffer(W, H);
+        int[] src = {1, 2, 3, 4, 5, 6, 7, 8};
+        buffer.submitFrame(src);
+        src[0] = 99;
+
+        assertThat(buffer.acquireLatestFrame()).containsExactly(1, 2, 3, 4, 5, 6, 7, 8);
+    }
+
+    @Test
+    void getLatestFrame_copiesAndTracksCount() {
+        FrameBuffer buffer = new FrameBuffer(W, H);
+        int[] dest = new int[W * H];
+
+        assertThat(buffer.getLatestFrame(dest, 0)).isEqualTo(-1L);
+
+        publish(buffer, 5);
+        long count = buffer.getLatestFrame(dest, 0);
+        assertThat(count).isEqualTo(1L);
+        assertThat(dest[0]).isEqualTo(5);
+        assertThat(buffer.getLatestFrame(dest, count)).isEqualTo(-1L);
+    }
+
+    @Test
+    void isFrameWanted_pushModeByDefault() {
+        FrameBuffer buffer = new FrameBuffer(W, H);
+        assertThat(buffer.isFrameWanted(System.nanoTime())).isTrue();
+        assertThat(buffer.isFrameWanted(Long.MIN_VALUE + 1)).isTrue();
+    }
+
+    @Test
+    void requestFrame_skipsFramesTooEarlyForTheNextRead() {
+        FrameBuffer buffer = new FrameBuffer(W, H);
+        long now = 1_000_000_000L;
+        long period = 16_000_000L;
+        buffer.requestFrame(now + 50_000_000L, period);
+
+        assertThat(buffer.isFrameWanted(now)).isFalse();
+        assertThat(buffer.isFrameWanted(now + 30_000_000L)).isFalse();
+        // The last frame before the read and anything after it (a late read) are wanted
+        assertThat(buffer.isFrameWanted(now + 34_000_000L)).isTrue();
+        assertThat(buffer.isFrameWanted(now + 60_000_000L)).isTrue();
+    }
+
+    @Test
+    void requestFrame_keepsFrameForAReadThatFiresEarly() {
+        FrameBuffer buffer = new FrameBuffer(W, H);
+        long now = 1_000_000_000L;
+        buffer.requestFrame(now + 50_000_000L, 16_000_000L);
+
+        // The read fires 1ms early: the frame completed just before it must not be skipped
+        assertThat(buffer.isFrameWanted(now + 33_000_000L)).isTrue();
+    }
+
+    @Test
+    void requestFrame_zeroPeriodStillWantsFramesJustBeforeTheRead() {
+        FrameBuffer buffer = new FrameBuffer(W, H);
+        long now = 1_000_000_000L;
+        buffer.requestFrame(now + 50_000_000L, 0);
+
+        assertThat(buffer.isFrameWanted(now + 40_000_000L)).isFalse();
+        assertThat(buffer.isFrameWanted(now + 49_000_000L)).isTrue();
+        assertThat(buffer.isFrameWanted(now + 50_000_000L)).isTrue();
+    }
+
+    @Test
+    void concurrentProducer_consumerNeverSeesTornFrame() throws Exception {
+        FrameBuffer buffer = new FrameBuffer(64, 64);
+        int frames = 20_000;
+        AtomicReference<String> failure = new AtomicReference<>();
+
+        Thread producer = new Thread(() -> {
+            for (int i = 1; i <= frames; i++) {
+                publish(buffer, i);
+            }
+        });
+        producer.start();
+
+        int lastSeen = 0;
+        while (producer.isAlive() || lastSeen < frames) {
+            int[] frame = buffer.acquireLatestFrame();
+            if (frame == null) {
+                if (!producer.isAlive() && buffer.getFrameCount() == lastSeen) {
+                    break;
+                }
+                continue;
+            }
+            int value = frame[0];
+            for (int pixel : frame) {
+                if (pixel != value) {
+                    failure.set("torn frame: " + value + " vs " + pixel);
+                }
+            }
+            if (value < lastSeen) {
+                failure.set("frame went backwards: " + lastSeen + " -> " + value);
+            }
+            lastSeen = value;
+        }
+        producer.join();
+
+        assertThat(failure.get()).isNull();
+        assertThat(lastSeen).isEqualTo(frames);
+    }
+}
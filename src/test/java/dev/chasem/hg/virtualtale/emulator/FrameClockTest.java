@@ -0,0 +1,72 @@
+package dev.chasem.hg.virtualtale.emulator;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FrameClockTest {
+
+    private static final long PERIOD = 16_000_000L;
+
+    @Test
+    void deadlines_areAbsolute_soOversleepDoesNotAccumulate() {
+        FrameClock clock = new FrameClock(0, 6);
+        clock.start(0);
+
+        // Every frame finishes 3ms after its deadline; deadlines stay on the grid
+        assertThat(clock.nextDeadline(PERIOD, 0)).isEqualTo(PERIOD);
+        assertThat(clock.nextDeadline(PERIOD, PERIOD + 3_000_000L)).isEqualTo(2 * PERIOD);
+        assertThat(clock.nextDeadline(PERIOD, 2 * PERIOD + 3_000_000L)).isEqualTo(3 * PERIOD);
+    }
+
+    @Test
+    void speedChange_continuesFromCurrentDeadline() {
+        FrameClock clock = new FrameClock(0, 6);
+        clock.start(0);
+        clock.nextDeadline(PERIOD, 0);
+
+        assertThat(clock.nextDeadline(PERIOD / 2, PERIOD)).isEqualTo(PERIOD + PERIOD / 2);
+        assertThat(clock.nextDeadline(PERIOD / 2, PERIOD + PERIOD / 2)).isEqualTo(2 * PERIOD);
+    }
+
+    @Test
+    void smallLag_isCaughtUp_largeLagIsDropped() {
+        FrameClock clock = new FrameClock(0, 2);
+        clock.start(0);
+
+        // Two frames behind: the deadline is in the past so the loop runs straight on
+        assertThat(clock.nextDeadline(PERIOD, 3 * PERIOD)).isEqualTo(PERIOD);
+        assertThat(clock.getStats().droppedFrames()).isZero();
+
+        // A long pause: restart from now instead of bursting through the backlog
+        long now = 20 * PERIOD;
+        assertThat(clock.nextDeadline(PERIOD, now)).isEqualTo(now);
+        assertThat(clock.getStats().droppedFrames()).isEqualTo(18);
+        assertThat(clock.nextDeadline(PERIOD, now)).isEqualTo(now + PERIOD);
+    }
+
+    @Test
+    void unthrottled_deadlineIsAlwaysNow() {
+        FrameClock clock = new FrameClock(0, 6);
+        clock.start(0);
+        assertThat(clock.nextDeadline(0, 5)).isEqualTo(5);
+        assertThat(clock.nextDeadline(0, 9)).isEqualTo(9);
+        assertThat(clock.getStats().droppedFrames()).isZero();
+
+        // Back to normal speed: the next frame is one period from the last one
+        assertThat(clock.nextDeadline(PERIOD, 10)).isEqualTo(9 + PERIOD);
+    }
+
+    @Test
+    void sleepUntil_waitsForDeadlineAndRecordsLateness() throws InterruptedException {
+        FrameClock clock = new FrameClock(200_000L, 6);
+        clock.start(System.nanoTime());
+        long deadline = System.nanoTime() + 2_000_000L;
+
+        clock.sleepUntil(deadline);
+
+        assertThat(System.nanoTime()).isGreaterThanOrEqualTo(deadline);
+        clock.recordStart(0, 5_000_000L);
+        assertThat(clock.getStats().maxLateNanos()).isGreaterThanOrEqualTo(5_000_000L);
+    }
+}
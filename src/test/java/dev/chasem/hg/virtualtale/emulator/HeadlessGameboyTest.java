@@ -0,0 +1,106 @@
+package dev.chasem.hg.virtualtale.emulator;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HeadlessGameboyTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final List<HeadlessGameboy> started = new ArrayList<>();
+
+    @AfterEach
+    void stopEmulators() {
+        started.forEach(HeadlessGameboy::stop);
+    }
+
+    @Test
+    void saveState_roundTripsThroughLoadState() throws IOException {
+        HeadlessGameboy gameboy = start("game.gb");
+
+        byte[] state = gameboy.saveState();
+        gameboy.loadState(state);
+
+        // The restored emulator can be snapshotted again
+        assertThat(gameboy.saveState().length).isGreaterThan(0);
+    }
+
+    @Test
+    void loadState_rejectsWrongMagic() throws IOException {
+        HeadlessGameboy gameboy = start("game.gb");
+        byte[] state = gameboy.saveState();
+        state[0] ^= 0x7F;
+
+        assertThatThrownBy(() -> gameboy.loadState(state))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Not a VirtualTale save state");
+    }
+
+    @Test
+    void loadState_rejectsUnsupportedVersion() throws IOException {
+        HeadlessGameboy gameboy = start("game.gb");
+        byte[] state = gameboy.saveState();
+        ByteBuffer.wrap(state).putInt(4, 99);
+
+        assertThatThrownBy(() -> gameboy.loadState(state))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Unsupported save state version: 99");
+    }
+
+    @Test
+    void loadState_rejectsStateOfAnotherRom() throws IOException {
+        byte[] state = start("game.gb").saveState();
+        HeadlessGameboy other = start("other.gb");
+
+        assertThatThrownBy(() -> other.loadState(state))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Save state is for a different game: game.gb");
+    }
+
+    @Test
+    void loadState_rejectsClassesOutsideTheMemento() throws IOException {
+        HeadlessGameboy gameboy = start("game.gb");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0x56545354);
+        out.writeInt(1);
+        out.writeUTF("game.gb");
+        try (ObjectOutputStream objects = new ObjectOutputStream(new GZIPOutputStream(out))) {
+            objects.writeObject(new ArrayList<>(List.of("not", "a", "memento")));
+        }
+
+        assertThatThrownBy(() -> gameboy.loadState(bytes.toByteArray()))
+                .isInstanceOf(InvalidClassException.class);
+    }
+
+    /**
+     * Starts an emulator on a blank 32KB ROM-only cartridge, which just runs NOPs.
+     */
+    private HeadlessGameboy start(String romName) throws IOException {
+        File rom = tempDir.resolve(romName).toFile();
+        Files.write(rom.toPath(), new byte[0x8000]);
+        HeadlessGameboy gameboy = new HeadlessGameboy(rom, tempDir.resolve(romName + ".sav").toFile(),
+                new FrameBuffer(FrameBuffer.GB_WIDTH, FrameBuffer.GB_HEIGHT), null, new FrameClock(0, 6));
+        gameboy.start();
+        started.add(gameboy);
+        return gameboy;
+    }
+}
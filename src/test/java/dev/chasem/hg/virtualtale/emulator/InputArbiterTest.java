@@ -0,0 +1,76 @@
+package dev.chasem.hg.virtualtale.emulator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InputArbiterTest {
+
+    private final UUID owner = UUID.randomUUID();
+    private final UUID player = UUID.randomUUID();
+    private final UUID stranger = UUID.randomUUID();
+
+    @Test
+    void ownerMode_onlyOwnerControls() {
+        InputArbiter arbiter = new InputArbiter(owner, InputArbiter.Mode.OWNER);
+        arbiter.addPlayer(player);
+
+        assertThat(arbiter.canControl(owner)).isTrue();
+        assertThat(arbiter.canControl(player)).isFalse();
+        assertThat(arbiter.canControl(stranger)).isFalse();
+    }
+
+    @Test
+    void sharedMode_everyPlayerControls() {
+        InputArbiter arbiter = new InputArbiter(owner, InputArbiter.Mode.SHARED);
+        arbiter.addPlayer(player);
+
+        assertThat(arbiter.canControl(owner)).isTrue();
+        assertThat(arbiter.canControl(player)).isTrue();
+        assertThat(arbiter.canControl(stranger)).isFalse();
+    }
+
+    @Test
+    void turnsMode_controllerIsPassedAround() {
+        InputArbiter arbiter = new InputArbiter(owner, InputArbiter.Mode.TURNS);
+        arbiter.addPlayer(player);
+        assertThat(arbiter.canControl(owner)).isTrue();
+        assertThat(arbiter.canControl(player)).isFalse();
+
+        arbiter.passControl(owner, player);
+        assertThat(arbiter.canControl(owner)).isFalse();
+        assertThat(arbiter.canControl(player)).isTrue();
+
+        // The owner can always take it back; others can't pass what they don't hold
+        assertThatThrownBy(() -> arbiter.passControl(stranger, owner)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> arbiter.passControl(player, stranger)).isInstanceOf(IllegalArgumentException.class);
+        arbiter.passControl(owner, owner);
+        assertThat(arbiter.getControllerId()).isEqualTo(owner);
+    }
+
+    @Test
+    void turnsMode_leavingControllerReturnsControlToOwner() {
+        InputArbiter arbiter = new InputArbiter(owner, InputArbiter.Mode.TURNS);
+        arbiter.addPlayer(player);
+        arbiter.passControl(owner, player);
+
+        arbiter.removePlayer(player);
+
+        assertThat(arbiter.isPlayer(player)).isFalse();
+        assertThat(arbiter.canControl(owner)).isTrue();
+    }
+
+    @Test
+    void passControl_requiresTurnsMode() {
+        InputArbiter arbiter = new InputArbiter(owner, InputArbiter.Mode.SHARED);
+        arbiter.addPlayer(player);
+
+        assertThatThrownBy(() -> arbiter.passControl(owner, player)).isInstanceOf(IllegalStateException.class);
+
+        arbiter.setMode(InputArbiter.Mode.TURNS);
+        assertThat(arbiter.getControllerId()).isEqualTo(owner);
+    }
+}